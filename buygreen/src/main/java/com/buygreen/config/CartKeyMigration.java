@@ -0,0 +1,102 @@
+package com.buygreen.config;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Merges duplicate (customer_id, product_id) cart rows before ddl-auto adds
+ * uk_cart_customer_product, which it cannot do while duplicates exist. Each group is folded
+ * into its oldest row with the quantities summed. Runs before the entity manager factory (and
+ * so before the schema update); a database without the cart table, or that already has the
+ * key, is left alone.
+ */
+@Configuration
+public class CartKeyMigration implements InitializingBean {
+
+    private static final Logger logger = Logger.getLogger(CartKeyMigration.class.getName());
+
+    static final String KEY = "uk_cart_customer_product";
+
+    // Only the DataSource: the JPA transaction manager would need the entity manager factory
+    @Autowired
+    private DataSource dataSource;
+
+    @Bean
+    static EntityManagerFactoryDependsOnPostProcessor cartKeyMigrationFirst() {
+        return new EntityManagerFactoryDependsOnPostProcessor(CartKeyMigration.class);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Boolean pending = jdbcTemplate.execute(
+                (ConnectionCallback<Boolean>) connection -> needsMerge(connection.getMetaData()));
+        if (Boolean.TRUE.equals(pending)) {
+            int merged = merge(jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+            if (merged > 0) {
+                logger.info("Merged " + merged + " duplicate cart rows before adding " + KEY);
+            }
+        }
+    }
+
+    /**
+     * Folds every duplicate group into its lowest id, in one transaction; returns the number
+     * of rows deleted.
+     */
+    static int merge(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        Integer deleted = transactionTemplate.execute(status -> {
+            List<Object[]> keep = new ArrayList<>();
+            List<Object[]> drop = new ArrayList<>();
+            jdbcTemplate.query("SELECT customer_id, product_id, MIN(id), SUM(quantity) FROM cart "
+                    + "GROUP BY customer_id, product_id HAVING COUNT(*) > 1", rs -> {
+                keep.add(new Object[]{rs.getInt(4), rs.getLong(3)});
+                drop.add(new Object[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)});
+            });
+            if (keep.isEmpty()) {
+                return 0;
+            }
+            jdbcTemplate.batchUpdate("UPDATE cart SET quantity = ? WHERE id = ?", keep);
+            int rows = 0;
+            for (int count : jdbcTemplate.batchUpdate(
+                    "DELETE FROM cart WHERE customer_id = ? AND product_id = ? AND id <> ?", drop)) {
+                rows += Math.max(count, 0);
+            }
+            return rows;
+        });
+        return deleted != null ? deleted : 0;
+    }
+
+    private static boolean needsMerge(DatabaseMetaData metaData) throws SQLException {
+        String catalog = metaData.getConnection().getCatalog();
+        try (ResultSet tables = metaData.getTables(catalog, null, "cart", new String[]{"TABLE"})) {
+            if (!tables.next()) {
+                return false;
+            }
+        }
+        try (ResultSet indexes = metaData.getIndexInfo(catalog, null, "cart", true, false)) {
+            while (indexes.next()) {
+                // Some databases name the backing index after the constraint with a suffix
+                String name = indexes.getString("INDEX_NAME");
+                if (name != null && name.toLowerCase().startsWith(KEY)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
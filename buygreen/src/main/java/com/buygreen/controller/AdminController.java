@@ -1,19 +1,38 @@
 package com.buygreen.controller;
 
 
+import com.buygreen.dto.CursorPage;
+import com.buygreen.dto.OrderNotification;
 import com.buygreen.model.Coupon;
 import com.buygreen.model.Customers;
 import com.buygreen.model.Order;
 import com.buygreen.repository.CouponRepository;
+import com.buygreen.service.CartStore;
 import com.buygreen.service.CouponService;
 import com.buygreen.service.CustomerService;
+import com.buygreen.service.NotificationOutboxService;
+import com.buygreen.service.OrderIntakeService;
 import com.buygreen.service.OrderService;
+import com.buygreen.service.ProductExportService;
+import com.buygreen.service.ProductImportService;
+import com.buygreen.service.StockReservationService;
+import com.buygreen.service.TransactionRetry;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.security.Principal;
@@ -33,11 +52,38 @@ public class AdminController {
     @Autowired
     private CouponRepository couponRepository;
 
+    @Autowired
+    private TransactionRetry transactionRetry;
+
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+
+    @Autowired
+    private NotificationOutboxService outboxService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private StockReservationService reservationService;
+
     @GetMapping("/orders")
     public ResponseEntity<Page<Order>> getAllOrders(Pageable pageable) {
         return ResponseEntity.ok(orderService.getAllOrders(pageable));
     }
 
+    @GetMapping("/orders/scroll")
+    public ResponseEntity<?> scrollOrders(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "includeTotal", defaultValue = "false") boolean includeTotal) {
+        try {
+            return ResponseEntity.ok(orderService.scrollOrders(cursor, Math.max(1, Math.min(size, 100)), includeTotal));
+        } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Invalid cursor"));
+        }
+    }
+
     @GetMapping("/customers")
     public ResponseEntity<Page<Customers>> getAllCustomers(Pageable pageable) {
         Page<Customers> customers = customerService.getAllCustomers(pageable);
@@ -45,6 +91,20 @@ public class AdminController {
         return ResponseEntity.ok(customers);
     }
 
+    @GetMapping("/customers/scroll")
+    public ResponseEntity<?> scrollCustomers(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "includeTotal", defaultValue = "false") boolean includeTotal) {
+        try {
+            CursorPage<Customers> customers = customerService.scrollCustomers(cursor, Math.max(1, Math.min(size, 100)), includeTotal);
+            customers.getContent().forEach(customer -> customer.setPassword(null));
+            return ResponseEntity.ok(customers);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/customers/{id}")
     public ResponseEntity<?> deleteCustomer(@PathVariable Long id, Principal principal) {
         try {
@@ -125,22 +185,11 @@ public class AdminController {
     @PutMapping("/coupons/{id}")
     public ResponseEntity<?> updateCoupon(@PathVariable Long id, @RequestBody Coupon coupon) {
         try {
-            Coupon existingCoupon = couponRepository.findById(id)
-                    .orElseThrow(() -> new IllegalArgumentException("Coupon not found"));
-            
-            // Check if code is being changed and if new code already exists
-            if (!existingCoupon.getCode().equalsIgnoreCase(coupon.getCode())) {
-                if (couponRepository.findByCode(coupon.getCode().toUpperCase()).isPresent()) {
-                    return ResponseEntity.badRequest().body(Map.of("message", "Coupon code already exists"));
-                }
-            }
-            
-            coupon.setId(id);
-            coupon.setCode(coupon.getCode().toUpperCase());
-            Coupon updatedCoupon = couponRepository.save(coupon);
-            return ResponseEntity.ok(updatedCoupon);
+            return ResponseEntity.ok(couponService.updateCoupon(id, coupon));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (IllegalStateException | ConcurrencyFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("message", "Failed to update coupon: " + e.getMessage()));
         }
@@ -168,6 +217,12 @@ public class AdminController {
     @Autowired
     private com.buygreen.service.EmailService emailService;
 
+    @Autowired
+    private com.buygreen.service.ProductCache productCache;
+
+    @Autowired
+    private com.buygreen.service.ProductJsonCache productJsonCache;
+
     @GetMapping("/analytics/sales")
     public ResponseEntity<?> getSalesAnalytics() {
         try {
@@ -195,6 +250,83 @@ public class AdminController {
         }
     }
     
+    @Autowired
+    private ProductImportService productImportService;
+
+    // Streams the body: CSV with a header row, or one JSON product per line
+    @PostMapping(value = "/products/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importProducts(HttpServletRequest request) {
+        ProductImportService.Format format = request.getContentType().startsWith("text/csv")
+                ? ProductImportService.Format.CSV
+                : ProductImportService.Format.NDJSON;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            return ResponseEntity.ok(productImportService.importProducts(reader, format));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Failed to read import: " + e.getMessage()));
+        }
+    }
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @GetMapping("/products/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        ProductImportService.Format exportFormat;
+        try {
+            exportFormat = ProductImportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            // Streaming endpoints can only return a StreamingResponseBody, so the error is written by hand
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> out.write("{\"message\":\"Format must be ndjson or csv\"}".getBytes(StandardCharsets.UTF_8)));
+        }
+        boolean csv = exportFormat == ProductImportService.Format.CSV;
+        StreamingResponseBody body = out -> productExportService.export(out, exportFormat);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products." + (csv ? "csv" : "ndjson") + "\"")
+                .body(body);
+    }
+
+    @GetMapping("/metrics/order-intake")
+    public ResponseEntity<?> getOrderIntakeStats() {
+        return ResponseEntity.ok(orderIntakeService.stats());
+    }
+
+    // Order emails waiting in the outbox, and delivery counters
+    @GetMapping("/metrics/notification-outbox")
+    public ResponseEntity<?> getNotificationOutboxStats() {
+        return ResponseEntity.ok(outboxService.stats());
+    }
+
+    // In-memory carts and how far the database copy lags behind them
+    @GetMapping("/metrics/cart-store")
+    public ResponseEntity<?> getCartStoreStats() {
+        return ResponseEntity.ok(cartStore.stats());
+    }
+
+    // Customers holding stock at checkout and how many holds were converted or released
+    @GetMapping("/metrics/stock-reservations")
+    public ResponseEntity<?> getStockReservationStats() {
+        return ResponseEntity.ok(reservationService.stats());
+    }
+
+    // Optimistic-lock conflicts and retries per operation
+    @GetMapping("/metrics/contention")
+    public ResponseEntity<?> getContentionStats() {
+        return ResponseEntity.ok(transactionRetry.stats());
+    }
+
+    @GetMapping("/metrics/product-cache")
+    public ResponseEntity<?> getProductCacheStats() {
+        return ResponseEntity.ok(Map.of(
+                "entities", productCache.stats(),
+                "detailJson", productJsonCache.stats()));
+    }
+
     // Test email endpoint for debugging
     @PostMapping("/test-email")
     public ResponseEntity<?> testEmail(@RequestBody Map<String, String> request) {
@@ -210,8 +342,9 @@ public class AdminController {
             testOrder.setStatus(Order.OrderStatus.CONFIRMED);
             testOrder.setTotalAmount(java.math.BigDecimal.valueOf(100.00));
             
-            // Send test email
-            emailService.sendOrderStatusUpdateEmail(toEmail, testOrder, "Test User");
+            // Send test email (synchronously, so a delivery failure is reported here)
+            emailService.sendOrderStatusUpdateEmail(toEmail,
+                    OrderNotification.of(testOrder, "Test User", toEmail, false));
             
             return ResponseEntity.ok(Map.of(
                 "message", "Test email sent successfully. Check your inbox and spam folder.",
@@ -1,13 +1,20 @@
 package com.buygreen.controller;
 
 
+import com.buygreen.dto.CartSyncRequest;
 import com.buygreen.model.Cart;
+import com.buygreen.model.Customers;
+import com.buygreen.service.CartQuoteService;
 import com.buygreen.service.CartService;
+import com.buygreen.service.CustomerService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 
+import java.security.Principal;
 import java.util.List;
+import java.util.Map;
 
 import static org.springframework.data.jpa.domain.AbstractPersistable_.id;
 
@@ -18,6 +25,22 @@ public class CartController {
     @Autowired
     private CartService service;
 
+    @Autowired
+    private CartQuoteService quoteService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    // Lines are keyed by product within the logged-in customer's cart; unsaved lines have no id yet
+    private Long getCustomerIdFromPrincipal(Principal principal) {
+        String email = principal.getName();
+        Customers customer = customerService.getCustomerByEmail(email);
+        if (customer == null) {
+            throw new UsernameNotFoundException("User not found with email: " + email);
+        }
+        return customer.getId();
+    }
+
     @PostMapping("/add")
     public String addToCart(@RequestBody Cart cart) {
         return service.addToCart(cart);
@@ -34,8 +57,37 @@ public class CartController {
         return ResponseEntity.noContent().build();
     }
 
+    @DeleteMapping("/item/{productId}")
+    public ResponseEntity<?> removeFromCart(@PathVariable Long productId, Principal principal) {
+        service.removeFromCart(getCustomerIdFromPrincipal(principal), productId);
+        return ResponseEntity.ok(Map.of("message", "Item removed from cart"));
+    }
 
 
+
+    // Whole-cart update: the body is the full desired cart, the response the cart as stored
+    // plus an adjustment for every line that was clamped to stock or dropped
+    @PutMapping("/{customerId}/sync")
+    public ResponseEntity<?> syncCart(@PathVariable Long customerId, @RequestBody CartSyncRequest request) {
+        try {
+            return ResponseEntity.ok(service.syncCart(customerId, request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // Prices the cart from current product prices (and an optional coupon); the returned token
+    // can be sent to /orders/create as quoteToken
+    @GetMapping("/{customerId}/quote")
+    public ResponseEntity<?> quoteCart(@PathVariable Long customerId,
+                                       @RequestParam(required = false) String couponCode) {
+        try {
+            return ResponseEntity.ok(quoteService.quote(customerId, couponCode));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
     @GetMapping("/{customerId}")
     public List<Cart> getCartItems(@PathVariable Long customerId) {
         return service.getCartItems(customerId);
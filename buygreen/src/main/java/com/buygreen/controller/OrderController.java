@@ -1,15 +1,23 @@
 package com.buygreen.controller;
 
 import com.buygreen.dto.OrderRequest;
+import com.buygreen.dto.OrderTicket;
 import com.buygreen.model.Order;
+import com.buygreen.service.CartQuoteService;
+import com.buygreen.service.IdempotencyService;
+import com.buygreen.service.OrderIntakeService;
 import com.buygreen.service.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/orders")
@@ -18,27 +26,106 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+
+    @Autowired
+    private CartQuoteService quoteService;
+
+    // With an Idempotency-Key, a client retry (timeout, lost response) gets the first attempt's
+    // response back instead of placing the order a second time.
+    // With "Prefer: respond-async" the order is queued and 202 + a ticket is returned at once.
     @PostMapping("/create")
-    public ResponseEntity<?> placeOrder(@RequestBody OrderRequest orderRequest) {
+    public ResponseEntity<?> placeOrder(@RequestBody OrderRequest orderRequest,
+                                        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                        @RequestHeader(value = "Prefer", required = false) String prefer) {
+        boolean async = prefer != null && prefer.toLowerCase().contains("respond-async");
+        Supplier<ResponseEntity<?>> action = async ? () -> enqueueOrder(orderRequest) : () -> createOrder(orderRequest);
+        if (idempotencyKey == null || orderRequest == null) {
+            return action.get();
+        }
         try {
-            // Validate request
-            if (orderRequest == null) {
-                return ResponseEntity.badRequest().body(Map.of("message", "Order request cannot be null"));
-            }
-            if (orderRequest.getCustomerId() == null) {
-                return ResponseEntity.badRequest().body(Map.of("message", "Customer ID is required"));
-            }
-            if (orderRequest.getItems() == null || orderRequest.getItems().isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("message", "Order must contain at least one item"));
+            return idempotencyService.execute(idempotencyKey, orderRequest.getCustomerId(), orderRequest, action);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/tickets/{ticketId}")
+    public ResponseEntity<?> getTicket(@PathVariable String ticketId) {
+        OrderTicket ticket = orderIntakeService.getTicket(ticketId);
+        return ticket != null
+                ? ResponseEntity.ok(ticket)
+                : ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Ticket not found or expired"));
+    }
+
+    private ResponseEntity<?> enqueueOrder(OrderRequest orderRequest) {
+        ResponseEntity<?> invalid = validate(orderRequest);
+        if (invalid != null) {
+            return invalid;
+        }
+        try {
+            OrderService.validateItems(orderRequest.getItems());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+        OrderTicket ticket = orderIntakeService.submit(orderRequest);
+        if (ticket == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(Map.of("message", "Too many orders are being processed, please try again shortly"));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/orders/tickets/" + ticket.getId()))
+                .body(ticket);
+    }
+
+    // Request-level checks shared by both intake modes. Prices never come from the client: a
+    // quote token is resolved into items here, and an order without one is priced from the catalog
+    private ResponseEntity<?> validate(OrderRequest orderRequest) {
+        if (orderRequest == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Order request cannot be null"));
+        }
+        if (orderRequest.getCustomerId() == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Customer ID is required"));
+        }
+        try {
+            if (orderRequest.getQuoteToken() != null) {
+                quoteService.applyQuote(orderRequest);
+            } else {
+                quoteService.reprice(orderRequest);
             }
-            if (orderRequest.getTotalAmount() == null || orderRequest.getTotalAmount().compareTo(java.math.BigDecimal.ZERO) <= 0) {
-                return ResponseEntity.badRequest().body(Map.of("message", "Total amount must be greater than zero"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+        if (orderRequest.getItems() == null || orderRequest.getItems().isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Order must contain at least one item"));
+        }
+        if (orderRequest.getTotalAmount() == null || orderRequest.getTotalAmount().compareTo(java.math.BigDecimal.ZERO) <= 0) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Total amount must be greater than zero"));
+        }
+        return null;
+    }
+
+    private ResponseEntity<?> createOrder(OrderRequest orderRequest) {
+        try {
+            // Validate request
+            ResponseEntity<?> invalid = validate(orderRequest);
+            if (invalid != null) {
+                return invalid;
             }
             
             Order order = orderService.placeOrder(orderRequest);
             return ResponseEntity.status(HttpStatus.CREATED).body(order);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (ConcurrencyFailureException e) {
+            // Still conflicting after the retries; nothing was committed
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("message", "Order could not be placed due to high demand, please try again"));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -1,7 +1,9 @@
 package com.buygreen.controller;
 
 import com.buygreen.dto.PaymentOrderRequest;
+import com.buygreen.service.CartService;
 import com.buygreen.service.PaymentService;
+import com.buygreen.service.StockReservationService;
 import com.razorpay.RazorpayException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -11,6 +13,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
@@ -20,16 +24,47 @@ public class PaymentController {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private StockReservationService reservationService;
+
     @PostMapping("/order")
     public ResponseEntity<?> createPaymentOrder(@RequestBody PaymentOrderRequest request) {
+        LocalDateTime reservedUntil = null;
         try {
+            // Hold the cart's stock while the customer pays; placing the order converts the hold
+            if (request.getCustomerId() != null) {
+                reservedUntil = reservationService.reserveCart(request.getCustomerId(),
+                        cartService.getCartItems(request.getCustomerId()));
+            }
             Map<String, Object> order = paymentService.createOrder(request);
+            if (reservedUntil != null) {
+                order = new LinkedHashMap<>(order);
+                order.put("reservationExpiresAt", reservedUntil);
+            }
             return ResponseEntity.status(HttpStatus.CREATED).body(order);
+        } catch (IllegalArgumentException ex) {
+            releaseHold(request, reservedUntil);
+            return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
+        } catch (RuntimeException ex) {
+            // Anything else still fails the request as before, just without the hold
+            releaseHold(request, reservedUntil);
+            throw ex;
         } catch (RazorpayException ex) {
+            releaseHold(request, reservedUntil);
             return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(Map.of(
                     "message", "Failed to initiate payment",
                     "details", ex.getMessage()
             ));
         }
     }
+
+    // A payment that never started must not keep the stock locked for the whole TTL
+    private void releaseHold(PaymentOrderRequest request, LocalDateTime reservedUntil) {
+        if (reservedUntil != null) {
+            reservationService.releaseCart(request.getCustomerId());
+        }
+    }
 }
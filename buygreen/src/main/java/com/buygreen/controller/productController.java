@@ -1,17 +1,32 @@
 package com.buygreen.controller;
 
 
+import com.buygreen.dto.ProductPatch;
+import com.buygreen.dto.ProductSummary;
 import com.buygreen.model.Product;
+import com.buygreen.service.CatalogVersion;
+import com.buygreen.service.ProductJsonCache;
+import com.buygreen.service.ProductRecommendationIndex;
 import com.buygreen.service.ProductService;
+import com.buygreen.service.ProductSimilarityIndex;
+import com.buygreen.service.StockReservationService;
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/products")
@@ -21,23 +36,75 @@ public class productController {
     @Autowired
     private ProductService service;
 
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private ProductJsonCache productJson;
+
+    @Autowired
+    private StockReservationService reservationService;
+
     @PostMapping("/add")
     public ResponseEntity<?> addProduct(@RequestBody Product product) {
         return ResponseEntity.ok(service.addProduct(product));
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Page<Product>> getAllProducts(Pageable pageable) {
-        Page<Product> products = service.getAllProducts(pageable);
-        return ResponseEntity.ok(products);
+    public ResponseEntity<Page<Product>> getAllProducts(Pageable pageable, WebRequest request) {
+        return catalogConditional(request, () -> service.getAllProducts(pageable));
+    }
+
+    // Listing pages: product cards only, without the image collections
+    @GetMapping("/summary")
+    public ResponseEntity<Page<ProductSummary>> getProductSummaries(Pageable pageable, WebRequest request) {
+        return catalogConditional(request, () -> service.getProductSummaries(pageable));
+    }
+
+    @GetMapping("/search/summary")
+    public ResponseEntity<Page<ProductSummary>> searchProductSummaries(
+            @RequestParam("query") String query,
+            Pageable pageable, WebRequest request) {
+        return catalogConditional(request, () -> service.searchProductSummaries(query, pageable));
+    }
+
+    // Keyset alternative to /all: no OFFSET scan, and the total is only counted on request
+    @GetMapping("/scroll")
+    public ResponseEntity<?> scrollProducts(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "includeTotal", defaultValue = "false") boolean includeTotal) {
+        try {
+            return ResponseEntity.ok(service.scrollProducts(cursor, Math.max(1, Math.min(size, 100)), includeTotal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
     }
 
     @PutMapping("/update/{id}")
     public ResponseEntity<?> updateProduct(@PathVariable Long id, @RequestBody Product product) {
-        Product updated = service.updateProduct(id, product);
-        return (updated != null)
-                ? ResponseEntity.ok(updated)
-                : ResponseEntity.badRequest().body("Product not found");
+        try {
+            Product updated = service.updateProduct(id, product);
+            return (updated != null)
+                    ? ResponseEntity.ok(updated)
+                    : ResponseEntity.badRequest().body("Product not found");
+        } catch (IllegalStateException | ConcurrencyFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @PatchMapping("/update/{id}")
+    public ResponseEntity<?> patchProduct(@PathVariable Long id, @RequestBody ProductPatch patch) {
+        try {
+            Product updated = service.patchProduct(id, patch);
+            return (updated != null)
+                    ? ResponseEntity.ok(updated)
+                    : ResponseEntity.badRequest().body("Product not found");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (IllegalStateException | ConcurrencyFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        }
     }
 
     @DeleteMapping("/delete/{id}")
@@ -48,19 +115,100 @@ public class productController {
     @GetMapping("/search")
     public ResponseEntity<Page<Product>> searchProducts (
         @RequestParam("query") String query,
-                Pageable pageable){
-            Page<Product> products = service.searchProducts(query, pageable);
-            return ResponseEntity.ok(products);
+                Pageable pageable, WebRequest request){
+            return catalogConditional(request, () -> service.searchProducts(query, pageable));
         }
 
 
+    @GetMapping("/filter")
+    public ResponseEntity<?> filterProducts(
+            @RequestParam(value = "category", required = false) List<String> categories,
+            @RequestParam(value = "price", required = false) List<String> priceBands,
+            @RequestParam(value = "stock", required = false) List<String> stockStates,
+            Pageable pageable) {
+        try {
+            return ResponseEntity.ok(service.filterProducts(categories, priceBands, stockStates, pageable));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // Resolves many products in one round trip (cart, wishlist and order pages)
+    @GetMapping("/batch")
+    public ResponseEntity<?> getProductsByIds(@RequestParam("ids") List<Long> ids) {
+        try {
+            return ResponseEntity.ok(service.getProductsByIds(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // Units still for sale per product: stock less what other checkouts are holding
+    @GetMapping("/availability")
+    public ResponseEntity<?> getAvailability(@RequestParam("ids") List<Long> ids) {
+        try {
+            return ResponseEntity.ok(reservationService.available(new LinkedHashSet<>(ids)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggestProducts(
+            @RequestParam("prefix") String prefix,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return ResponseEntity.ok(service.suggestProducts(prefix, limit));
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public ResponseEntity<List<Product>> getRecommendations(
+            @PathVariable Long id,
+            @RequestParam(value = "limit", defaultValue = "8") int limit) {
+        return ResponseEntity.ok(service.getRecommendations(id, Math.max(1, Math.min(limit, ProductRecommendationIndex.TOP_K))));
+    }
+
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<Product>> getSimilarProducts(
+            @PathVariable Long id,
+            @RequestParam(value = "limit", defaultValue = "8") int limit) {
+        return ResponseEntity.ok(service.getSimilarProducts(id, Math.max(1, Math.min(limit, ProductSimilarityIndex.TOP_N))));
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<?> getProductById(@PathVariable Long id) {
+    public ResponseEntity<?> getProductById(@PathVariable Long id, WebRequest request) {
         Product product = service.getProductById(id);
         if(product != null) {
-            return ResponseEntity.ok(product);
+            if (request.checkNotModified(product.etag(), product.lastModifiedMillis())) {
+                return notModified();
+            }
+            // Hot products are served from pre-encoded bytes instead of re-running Jackson
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .eTag(product.etag())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(productJson.toJson(product));
         } else {
             return ResponseEntity.badRequest().body("Product not found");
         }
     }
+
+    // Listing responses only change when the catalog does, so they share one validator
+    private <T> ResponseEntity<T> catalogConditional(WebRequest request, Supplier<T> body) {
+        CatalogVersion.Validator validator = catalogVersion.current();
+        if (request.checkNotModified(validator.etag(), validator.lastModified())) {
+            return notModified();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(validator.etag())
+                .lastModified(validator.lastModified())
+                .body(body.get());
+    }
+
+    // checkNotModified already wrote the validators; no-cache (not no-store) keeps the browser copy
+    private <T> ResponseEntity<T> notModified() {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .cacheControl(CacheControl.noCache())
+                .build();
+    }
 }
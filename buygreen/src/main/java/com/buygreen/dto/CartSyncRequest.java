@@ -0,0 +1,38 @@
+package com.buygreen.dto;
+
+import java.util.List;
+
+public class CartSyncRequest {
+
+    // The whole cart as the client wants it; products left out are removed
+    private List<Line> items;
+
+    public List<Line> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Line> items) {
+        this.items = items;
+    }
+
+    public static class Line {
+        private Long productId;
+        private Integer quantity;
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public void setProductId(Long productId) {
+            this.productId = productId;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.buygreen.dto;
+
+import com.buygreen.model.Cart;
+
+import java.util.List;
+
+public class CartSyncResult {
+
+    // The cart as stored after the sync
+    private List<Cart> items;
+    // One entry per requested line that could not be applied as asked
+    private List<Adjustment> adjustments;
+
+    public CartSyncResult() {
+    }
+
+    public CartSyncResult(List<Cart> items, List<Adjustment> adjustments) {
+        this.items = items;
+        this.adjustments = adjustments;
+    }
+
+    public List<Cart> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Cart> items) {
+        this.items = items;
+    }
+
+    public List<Adjustment> getAdjustments() {
+        return adjustments;
+    }
+
+    public void setAdjustments(List<Adjustment> adjustments) {
+        this.adjustments = adjustments;
+    }
+
+    public static class Adjustment {
+        private Long productId;
+        private int requested;
+        private int quantity;
+        private String message;
+
+        public Adjustment() {
+        }
+
+        public Adjustment(Long productId, int requested, int quantity, String message) {
+            this.productId = productId;
+            this.requested = requested;
+            this.quantity = quantity;
+            this.message = message;
+        }
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public void setProductId(Long productId) {
+            this.productId = productId;
+        }
+
+        public int getRequested() {
+            return requested;
+        }
+
+        public void setRequested(int requested) {
+            this.requested = requested;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
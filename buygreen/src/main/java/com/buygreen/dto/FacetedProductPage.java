@@ -0,0 +1,37 @@
+package com.buygreen.dto;
+
+import com.buygreen.model.Product;
+import org.springframework.data.domain.Page;
+
+import java.util.Map;
+
+public class FacetedProductPage {
+
+    private Page<Product> products;
+    // facet name -> (facet value -> matching product count)
+    private Map<String, Map<String, Integer>> facets;
+
+    public FacetedProductPage() {
+    }
+
+    public FacetedProductPage(Page<Product> products, Map<String, Map<String, Integer>> facets) {
+        this.products = products;
+        this.facets = facets;
+    }
+
+    public Page<Product> getProducts() {
+        return products;
+    }
+
+    public void setProducts(Page<Product> products) {
+        this.products = products;
+    }
+
+    public Map<String, Map<String, Integer>> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Map<String, Map<String, Integer>> facets) {
+        this.facets = facets;
+    }
+}
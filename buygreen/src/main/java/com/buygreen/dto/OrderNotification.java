@@ -0,0 +1,39 @@
+package com.buygreen.dto;
+
+import com.buygreen.model.Order;
+import com.buygreen.model.OrderItem;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * What an order email needs, copied out of the order when the notification is queued.
+ * Stored as JSON in the outbox, so the email describes the order as it was at that moment
+ * and sending never touches the Order entity (or its lazy items) again.
+ */
+public record OrderNotification(Long orderId, LocalDateTime orderDate, Order.OrderStatus status,
+                                BigDecimal totalAmount, String shippingAddress, String location, String street,
+                                String city, String state, String pincode, String country, String trackingNumber,
+                                String couponCode, BigDecimal discountAmount, String customerName,
+                                String customerEmail, List<Item> items) {
+
+    public record Item(String productName, int quantity, BigDecimal price) {
+    }
+
+    // Items are only copied when the email lists them, so a status update does not load them
+    public static OrderNotification of(Order order, String customerName, String customerEmail, boolean withItems) {
+        List<Item> items = List.of();
+        if (withItems && order.getItems() != null) {
+            items = order.getItems().stream().map(OrderNotification::item).toList();
+        }
+        return new OrderNotification(order.getId(), order.getOrderDate(), order.getStatus(), order.getTotalAmount(),
+                order.getShippingAddress(), order.getLocation(), order.getStreet(), order.getCity(),
+                order.getState(), order.getPincode(), order.getCountry(), order.getTrackingNumber(),
+                order.getCouponCode(), order.getDiscountAmount(), customerName, customerEmail, items);
+    }
+
+    private static Item item(OrderItem item) {
+        return new Item(item.getProductName(), item.getQuantity(), item.getPrice());
+    }
+}
@@ -16,6 +16,9 @@ public class OrderRequest {
     private String country;
     private String pincode;
     private String couponCode;
+    // From GET /cart/{customerId}/quote; when present, its lines, prices and coupon replace
+    // items, totalAmount and couponCode
+    private String quoteToken;
 
     public Long getCustomerId() {
         return customerId;
@@ -105,6 +108,14 @@ public class OrderRequest {
         this.couponCode = couponCode;
     }
 
+    public String getQuoteToken() {
+        return quoteToken;
+    }
+
+    public void setQuoteToken(String quoteToken) {
+        this.quoteToken = quoteToken;
+    }
+
     public static class OrderItemRequest {
         private Long productId;
         private String productName;
@@ -0,0 +1,74 @@
+package com.buygreen.dto;
+
+import java.time.LocalDateTime;
+
+public class OrderTicket {
+
+    public enum Status {
+        QUEUED,
+        PROCESSING,
+        COMPLETED,
+        FAILED
+    }
+
+    // Immutable: the intake workers replace a ticket with a new one on every status change
+    private final String id;
+    private final Long customerId;
+    private final Status status;
+    private final Long orderId;
+    private final String message;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+
+    public OrderTicket(String id, Long customerId, Status status, Long orderId, String message,
+                       LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.customerId = customerId;
+        this.status = status;
+        this.orderId = orderId;
+        this.message = message;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    public static OrderTicket queued(String id, Long customerId) {
+        LocalDateTime now = LocalDateTime.now();
+        return new OrderTicket(id, customerId, Status.QUEUED, null, null, now, now);
+    }
+
+    public OrderTicket with(Status status, Long orderId, String message) {
+        return new OrderTicket(id, customerId, status, orderId, message, createdAt, LocalDateTime.now());
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -10,6 +10,8 @@ public class PaymentOrderRequest {
     private BigDecimal amount;
     private String currency = "INR";
     private String receipt;
+    // Optional: when set, the customer's cart is held for them while they pay
+    private Long customerId;
 
     public BigDecimal getAmount() {
         return amount;
@@ -34,4 +36,12 @@ public class PaymentOrderRequest {
     public void setReceipt(String receipt) {
         this.receipt = receipt;
     }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
 }
@@ -0,0 +1,36 @@
+package com.buygreen.dto;
+
+import com.buygreen.model.Product;
+
+import java.util.List;
+
+public class ProductBatch {
+
+    // In the order the ids were requested; ids that do not exist are listed in missing instead
+    private List<Product> products;
+    private List<Long> missing;
+
+    public ProductBatch() {
+    }
+
+    public ProductBatch(List<Product> products, List<Long> missing) {
+        this.products = products;
+        this.missing = missing;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public void setProducts(List<Product> products) {
+        this.products = products;
+    }
+
+    public List<Long> getMissing() {
+        return missing;
+    }
+
+    public void setMissing(List<Long> missing) {
+        this.missing = missing;
+    }
+}
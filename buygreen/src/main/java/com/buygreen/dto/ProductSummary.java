@@ -0,0 +1,79 @@
+package com.buygreen.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Listing-page view of a product: just what a product card shows, with the
+ * first image URL instead of the whole image collection.
+ */
+public class ProductSummary {
+
+    private Long id;
+    private String name;
+    private BigDecimal price;
+    private int stockQuantity;
+    private String category;
+    private String primaryImageUrl;
+
+    public ProductSummary() {
+    }
+
+    // Used by JPQL constructor expressions in ProductRepository
+    public ProductSummary(Long id, String name, BigDecimal price, int stockQuantity, String category,
+                          String primaryImageUrl) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+        this.category = category;
+        this.primaryImageUrl = primaryImageUrl;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public int getStockQuantity() {
+        return stockQuantity;
+    }
+
+    public void setStockQuantity(int stockQuantity) {
+        this.stockQuantity = stockQuantity;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public String getPrimaryImageUrl() {
+        return primaryImageUrl;
+    }
+
+    public void setPrimaryImageUrl(String primaryImageUrl) {
+        this.primaryImageUrl = primaryImageUrl;
+    }
+}
@@ -10,7 +10,10 @@ import java.math.BigDecimal;
 @Setter
 @Getter
 @Entity
-@Table(name = "cart")
+// One row per (customer, product): CartStore's flush upserts rely on this key, and
+// CartKeyMigration merges older duplicate rows before ddl-auto adds it
+@Table(name = "cart", uniqueConstraints = @UniqueConstraint(name = "uk_cart_customer_product",
+        columnNames = {"customer_id", "product_id"}))
 public class Cart {
 
     @Id
@@ -18,7 +21,9 @@ public class Cart {
 
     private Long id;
 
+    @Column(name = "customer_id")
     private Long customerId;
+    @Column(name = "product_id")
     private Long productId;
     private String productName;
     private BigDecimal price;
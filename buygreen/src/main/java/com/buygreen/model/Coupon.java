@@ -36,6 +36,11 @@ public class Coupon {
 
     private Boolean isActive = true;
 
+    // Optimistic lock between admin edits and checkout incrementing usedCount
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     public enum DiscountType {
         PERCENTAGE,
         FIXED
@@ -0,0 +1,53 @@
+package com.buygreen.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Setter
+@Getter
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_expires_at", columnList = "expires_at"))
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Client key prefixed with the customer id, so two customers can never share a key
+    @Column(name = "idempotency_key", length = 200, nullable = false, unique = true)
+    private String idempotencyKey;
+
+    // SHA-256 of the request body; the same key with a different body is refused
+    @Column(name = "request_hash", length = 64, nullable = false)
+    private String requestHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    private Integer responseStatus;
+
+    @Lob
+    private String responseBody;
+
+    // Set in the transaction that places the order, so a committed order is never without it
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public enum Status {
+        IN_PROGRESS,
+        COMPLETED
+    }
+
+    public IdempotencyRecord() {
+    }
+}
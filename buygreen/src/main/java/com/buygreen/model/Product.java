@@ -1,10 +1,13 @@
 package com.buygreen.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -29,7 +32,8 @@ import java.util.ArrayList;
         private BigDecimal price;
         
         @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
-        @JoinColumn(name = "product_id")
+        @JoinColumn(name = "product_id", nullable = false, updatable = false)
+        @OrderBy("position ASC, id ASC")
         private List<ProductImage> productImages;
         
         // Keep imageUrls for backward compatibility (computed property)
@@ -37,7 +41,51 @@ import java.util.ArrayList;
         private List<String> imageUrls;
         
         private int stockQuantity;
+
+        // Units held by open checkouts (stock_reservations); only ever changed by conditional
+        // JDBC updates, so JPA neither inserts nor overwrites it
+        @JsonIgnore
+        @Column(name = "reserved_quantity", nullable = false, insertable = false, updatable = false,
+                columnDefinition = "int default 0")
+        private int reservedQuantity;
+
         private String category;
+
+        // Set on every write; drives the Last-Modified of the product detail response
+        private LocalDateTime updatedAt;
+
+        // Optimistic lock: admin edits and checkout decrements bump it, so a writer holding
+        // an older copy fails instead of silently overwriting the newer row. Also the ETag:
+        // the same row version has the same validator on every instance
+        @Version
+        @Column(nullable = false)
+        private Long version;
+
+        // Detached shallow copy (own image list) for caches that must not mutate an instance
+        // they have already handed out
+        public Product copy() {
+            Product copy = new Product();
+            copy.id = id;
+            copy.name = name;
+            copy.description = description;
+            copy.price = price;
+            copy.productImages = productImages != null ? new ArrayList<>(productImages) : null;
+            copy.imageUrls = imageUrls;
+            copy.stockQuantity = stockQuantity;
+            copy.reservedQuantity = reservedQuantity;
+            copy.category = category;
+            copy.updatedAt = updatedAt;
+            copy.version = version;
+            return copy;
+        }
+
+        public String etag() {
+            return "\"p" + id + "-" + (version != null ? version : 0) + "\"";
+        }
+
+        public long lastModifiedMillis() {
+            return updatedAt != null ? updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+        }
         
         // Getter for imageUrls (computed from productImages)
         public List<String> getImageUrls() {
@@ -59,10 +107,7 @@ import java.util.ArrayList;
                     this.productImages.clear();
                 }
                 for (String url : urls) {
-                    ProductImage img = new ProductImage();
-                    img.setProductId(this.id);
-                    img.setImageUrl(url);
-                    this.productImages.add(img);
+                    this.productImages.add(new ProductImage(this.id, url, this.productImages.size()));
                 }
             } else {
                 if (this.productImages != null) {
@@ -14,18 +14,24 @@ public class ProductImage {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(name = "product_id", nullable = false)
+    // Written through Product.productImages; mapped here read-only for queries and the JSON view
+    @Column(name = "product_id", nullable = false, insertable = false, updatable = false)
     private Long productId;
     
     @Column(name = "image_url", length = 1024, nullable = false)
     private String imageUrl;
+
+    // Display order within the product, 0 = primary image
+    @Column(name = "position", nullable = false)
+    private int position;
     
     public ProductImage() {
     }
     
-    public ProductImage(Long productId, String imageUrl) {
+    public ProductImage(Long productId, String imageUrl, int position) {
         this.productId = productId;
         this.imageUrl = imageUrl;
+        this.position = position;
     }
 }
 
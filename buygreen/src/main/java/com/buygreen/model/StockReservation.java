@@ -0,0 +1,41 @@
+package com.buygreen.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// A soft hold on stock for a checkout in progress. The row is deleted when the order converts
+// it into a real decrement or when the sweeper releases it after expiry; either way the
+// products.reserved_quantity it added is taken back in the same transaction.
+@Setter
+@Getter
+@Entity
+@Table(name = "stock_reservations", indexes = {
+        @Index(name = "idx_reservation_customer", columnList = "customer_id"),
+        @Index(name = "idx_reservation_expires_at", columnList = "expires_at")})
+public class StockReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public StockReservation() {
+    }
+}
@@ -1,6 +1,7 @@
 package com.buygreen.repository;
 
 import com.buygreen.model.Customers;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -15,6 +16,9 @@ public interface CustomerRepository extends JpaRepository <Customers, Long>{
     // ADDED: For calculating new customers count
     Long countByRegistrationDateAfter(LocalDateTime date);
     
+    // Keyset pagination by id; the Pageable only carries the limit
+    java.util.List<Customers> findByIdGreaterThanOrderByIdAsc(Long id, Pageable limit);
+
     // ADDED: For populating registration chart data
     @org.springframework.data.jpa.repository.Query(value = "SELECT DATE(registration_date) as reg_date, COUNT(*) as count FROM customers WHERE registration_date >= ?1 GROUP BY reg_date ORDER BY reg_date", nativeQuery = true)
     java.util.List<Object[]> findNewCustomersByDateAfter(LocalDateTime startDate);
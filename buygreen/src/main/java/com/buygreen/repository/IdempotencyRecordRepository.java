@@ -0,0 +1,42 @@
+package com.buygreen.repository;
+
+import com.buygreen.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+    Optional<IdempotencyRecord> findByIdempotencyKey(String idempotencyKey);
+
+    // Joins the caller's transaction: the order and its claim commit (or roll back) together
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.orderId = :orderId WHERE r.id = :id AND r.orderId IS NULL")
+    int attachOrder(@Param("id") Long id, @Param("orderId") Long orderId);
+
+    // Leaves order_id alone, unlike a save of the claim entity loaded before the order ran
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = com.buygreen.model.IdempotencyRecord.Status.COMPLETED, "
+            + "r.responseStatus = :status, r.responseBody = :body WHERE r.id = :id")
+    int complete(@Param("id") Long id, @Param("status") int status, @Param("body") String body);
+
+    // A claim with an order attached is never dropped; the order is what the key stands for
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.orderId IS NULL")
+    int deleteUnattached(@Param("id") Long id);
+
+    // Bulk delete, no entity loading
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,25 @@
+package com.buygreen.repository;
+
+import com.buygreen.model.NotificationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+    long countByStatus(NotificationOutbox.Status status);
+
+    @Query("SELECT MIN(n.createdAt) FROM NotificationOutbox n WHERE n.status = com.buygreen.model.NotificationOutbox.Status.PENDING")
+    LocalDateTime findOldestPendingCreatedAt();
+
+    // Bulk delete, no entity loading
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM NotificationOutbox n WHERE n.status = com.buygreen.model.NotificationOutbox.Status.SENT AND n.sentAt < :cutoff")
+    int deleteSentBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -2,6 +2,13 @@ package com.buygreen.repository;
 
 import com.buygreen.model.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    // Units sold per product, used to rank typeahead suggestions
+    @Query("SELECT i.productId, SUM(i.quantity) FROM OrderItem i GROUP BY i.productId")
+    List<Object[]> sumQuantityByProduct();
 }
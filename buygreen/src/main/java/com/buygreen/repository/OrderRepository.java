@@ -16,6 +16,12 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
     Page<Order> findAllByOrderByOrderDateDesc(Pageable pageable);
 
+    // Keyset pagination over (orderDate DESC, id DESC); the Pageable only carries the limit
+    List<Order> findAllByOrderByOrderDateDescIdDesc(Pageable limit);
+
+    @Query("SELECT o FROM Order o WHERE o.orderDate < :orderDate OR (o.orderDate = :orderDate AND o.id < :id) ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findPageBefore(@Param("orderDate") LocalDateTime orderDate, @Param("id") Long id, Pageable limit);
+
     @Query("SELECT COUNT(o) > 0 from Order o join o.items i where o.customerId = ?1 AND i.productId= ?2")
     boolean hasCustomerPurchasedProduct(Long customerId, Long productId);
 
@@ -1,12 +1,18 @@
 package com.buygreen.repository;
 
+import com.buygreen.dto.ProductSummary;
 import com.buygreen.model.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
@@ -14,4 +20,35 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p from Product p where p.name Like %?1% OR p.description like %?1%")
     Page<Product> searchByNameOrDescription(String query, Pageable pageable);
 
+    // Keyset pagination: seek past the last id instead of OFFSET; the Pageable only carries the limit
+    @Query("SELECT p FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<Product> findPageAfter(@Param("afterId") Long afterId, Pageable limit);
+
+    // Listing projection: one statement for the page (primary image = lowest position, via subquery) plus the count
+    @Query(value = "SELECT new com.buygreen.dto.ProductSummary(p.id, p.name, p.price, p.stockQuantity, p.category, "
+            + "(SELECT i.imageUrl FROM ProductImage i WHERE i.id = "
+            + "(SELECT MIN(i2.id) FROM ProductImage i2 WHERE i2.productId = p.id AND i2.position = "
+            + "(SELECT MIN(i3.position) FROM ProductImage i3 WHERE i3.productId = p.id)))) FROM Product p",
+            countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<ProductSummary> findSummaries(Pageable pageable);
+
+    @Query("SELECT new com.buygreen.dto.ProductSummary(p.id, p.name, p.price, p.stockQuantity, p.category, "
+            + "(SELECT i.imageUrl FROM ProductImage i WHERE i.id = "
+            + "(SELECT MIN(i2.id) FROM ProductImage i2 WHERE i2.productId = p.id AND i2.position = "
+            + "(SELECT MIN(i3.position) FROM ProductImage i3 WHERE i3.productId = p.id)))) FROM Product p WHERE p.id IN :ids")
+    List<ProductSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Products and their images in one IN query (no per-batch image selects)
+    @EntityGraph(attributePaths = "productImages")
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids")
+    List<Product> findWithImagesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Text columns only (no images) for building the in-memory search index
+    @Query("SELECT p.id, p.name, p.description, p.category FROM Product p")
+    List<Object[]> findSearchableFields();
+
+    // Facet columns only, in id order so bitmap ordinals follow catalog order
+    @Query("SELECT p.id, p.category, p.price, p.stockQuantity FROM Product p ORDER BY p.id")
+    List<Object[]> findFacetFields();
+
 }
@@ -1,5 +1,6 @@
 package com.buygreen.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired; // <-- IMPORT THIS
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -27,6 +28,8 @@ public class SecurityConfig {
 
                 // --- 2. CONFIGURE STRICTER RULES ---
                 .authorizeHttpRequests(auth -> auth
+                        // Streamed responses (catalog export) finish on an ASYNC dispatch; the original request was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // Health check endpoints (for monitoring services - allow GET and HEAD)
                         .requestMatchers(HttpMethod.GET, "/").permitAll()
                         .requestMatchers(HttpMethod.HEAD, "/").permitAll()
@@ -42,6 +45,15 @@ public class SecurityConfig {
                         .requestMatchers("/reset-password").permitAll()
                         .requestMatchers(HttpMethod.GET, "/products/all").permitAll()
                         .requestMatchers(HttpMethod.GET, "/products/{id}").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/products/batch").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/products/availability").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/products/suggest").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/products/filter").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/products/scroll").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/products/summary").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/products/search/summary").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/products/{id}/recommendations").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/products/{id}/similar").permitAll()
 
                         //Add review files
                         .requestMatchers(HttpMethod.GET, "/products/{productId}/reviews").permitAll()
@@ -0,0 +1,37 @@
+package com.buygreen.service;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Row count that is recomputed at most once per TTL, so cursor listings
+ * that ask for a total don't run COUNT(*) on every page.
+ */
+public class CachedCount {
+
+    private final LongSupplier counter;
+    private final long ttlMillis;
+    private volatile long value;
+    private volatile long expiresAt;
+
+    public CachedCount(LongSupplier counter, long ttlMillis) {
+        this.counter = counter;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public long get() {
+        long now = System.currentTimeMillis();
+        if (now >= expiresAt) {
+            synchronized (this) {
+                if (now >= expiresAt) {
+                    value = counter.getAsLong();
+                    expiresAt = now + ttlMillis;
+                }
+            }
+        }
+        return value;
+    }
+
+    public void invalidate() {
+        expiresAt = 0;
+    }
+}
@@ -0,0 +1,210 @@
+package com.buygreen.service;
+
+import com.buygreen.dto.CartQuote;
+import com.buygreen.dto.OrderRequest;
+import com.buygreen.dto.ProductBatch;
+import com.buygreen.model.Cart;
+import com.buygreen.model.Coupon;
+import com.buygreen.model.Product;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Server-side cart pricing. A quote prices the customer's cart from current product prices
+ * (cache, then one IN query for misses), applies an optional coupon, and returns the result
+ * with a short-lived HMAC-signed token. /orders/create takes the token in place of client
+ * prices and totals, so checkout neither trusts the client nor prices the cart again.
+ * Orders sent without a token are priced here from current product prices instead.
+ */
+@Service
+public class CartQuoteService {
+
+    private static final String TOKEN_TYPE = "cart-quote";
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CouponService couponService;
+
+    @Value("${cart.quote.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private final SecretKey signingKey;
+
+    // Derived from the login secret, so a quote token can never pass as a login token or back
+    public CartQuoteService(@Value("${jwt.secret}") String jwtSecret) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            this.signingKey = Keys.hmacShaKeyFor(mac.doFinal(TOKEN_TYPE.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to derive the quote signing key", e);
+        }
+    }
+
+    public CartQuote quote(Long customerId, String couponCode) {
+        List<Cart> cart = cartService.getCartItems(customerId);
+        if (cart.isEmpty()) {
+            throw new IllegalArgumentException("Cart is empty");
+        }
+        List<Long> ids = new ArrayList<>(cart.size());
+        cart.forEach(line -> ids.add(line.getProductId()));
+        ProductBatch batch = productService.getProductsByIds(ids);
+        Map<Long, Product> products = new LinkedHashMap<>();
+        batch.getProducts().forEach(product -> products.put(product.getId(), product));
+
+        List<CartQuote.Line> lines = new ArrayList<>(cart.size());
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (Cart item : cart) {
+            Product product = products.get(item.getProductId());
+            if (product == null) {
+                continue;
+            }
+            CartQuote.Line line = new CartQuote.Line(product.getId(), product.getName(), product.getPrice(),
+                    item.getQuantity());
+            lines.add(line);
+            subtotal = subtotal.add(line.getLineTotal());
+        }
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("None of the products in the cart are available");
+        }
+
+        CartQuote quote = new CartQuote();
+        quote.setCustomerId(customerId);
+        quote.setItems(lines);
+        quote.setSubtotal(subtotal);
+        quote.setMissing(batch.getMissing());
+        quote.setDiscount(BigDecimal.ZERO);
+        if (couponCode != null && !couponCode.trim().isEmpty()) {
+            try {
+                Coupon coupon = couponService.validateCoupon(couponCode.trim(), subtotal);
+                quote.setCouponCode(coupon.getCode());
+                quote.setDiscount(coupon.calculateDiscount(subtotal));
+            } catch (IllegalArgumentException e) {
+                quote.setCouponMessage(e.getMessage());
+            }
+        }
+        quote.setTotal(subtotal.subtract(quote.getDiscount()));
+        quote.setExpiresAt(Instant.now().plusSeconds(ttlSeconds));
+        quote.setToken(sign(quote));
+        return quote;
+    }
+
+    private String sign(CartQuote quote) {
+        List<Map<String, Object>> items = new ArrayList<>(quote.getItems().size());
+        for (CartQuote.Line line : quote.getItems()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("p", line.getProductId());
+            item.put("n", line.getProductName());
+            item.put("u", line.getUnitPrice().toPlainString());
+            item.put("q", line.getQuantity());
+            items.add(item);
+        }
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("typ", TOKEN_TYPE);
+        claims.put("items", items);
+        claims.put("subtotal", quote.getSubtotal().toPlainString());
+        if (quote.getCouponCode() != null) {
+            claims.put("coupon", quote.getCouponCode());
+        }
+        return Jwts.builder()
+                .setClaims(claims)
+                .setSubject(String.valueOf(quote.getCustomerId()))
+                .setIssuedAt(new Date())
+                .setExpiration(Date.from(quote.getExpiresAt()))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    /**
+     * Replaces the client's unit prices, product names and total with current catalog values
+     * (one batch lookup), for orders placed without a quote token. Item fields left out by
+     * the client are left for the order's own validation to reject.
+     */
+    public void reprice(OrderRequest request) {
+        List<OrderRequest.OrderItemRequest> items = request.getItems();
+        if (items == null || items.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(items.size());
+        items.forEach(item -> ids.add(item.getProductId()));
+        Map<Long, Product> products = new LinkedHashMap<>();
+        productService.getProductsByIds(ids).getProducts().forEach(product -> products.put(product.getId(), product));
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderRequest.OrderItemRequest item : items) {
+            if (item.getProductId() == null || item.getQuantity() == null) {
+                continue;
+            }
+            Product product = products.get(item.getProductId());
+            if (product == null) {
+                throw new IllegalArgumentException("Product not found with ID: " + item.getProductId());
+            }
+            item.setProductName(product.getName());
+            item.setPrice(product.getPrice());
+            total = total.add(product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+        }
+        request.setTotalAmount(total);
+    }
+
+    /**
+     * Replaces the request's items, total and coupon with the ones in its quote token.
+     * The coupon is still validated (and its usage counted) when the order is placed.
+     */
+    public void applyQuote(OrderRequest request) {
+        Claims claims;
+        try {
+            claims = Jwts.parserBuilder()
+                    .setSigningKey(signingKey)
+                    .build()
+                    .parseClaimsJws(request.getQuoteToken())
+                    .getBody();
+        } catch (ExpiredJwtException e) {
+            throw new IllegalArgumentException("Quote has expired, please review your cart again");
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid quote token");
+        }
+        if (!TOKEN_TYPE.equals(claims.get("typ")) || !String.valueOf(request.getCustomerId()).equals(claims.getSubject())) {
+            throw new IllegalArgumentException("Invalid quote token");
+        }
+
+        List<?> quoted = claims.get("items", List.class);
+        List<OrderRequest.OrderItemRequest> items = new ArrayList<>(quoted.size());
+        for (Object entry : quoted) {
+            Map<?, ?> line = (Map<?, ?>) entry;
+            OrderRequest.OrderItemRequest item = new OrderRequest.OrderItemRequest();
+            item.setProductId(((Number) line.get("p")).longValue());
+            item.setProductName((String) line.get("n"));
+            item.setPrice(new BigDecimal((String) line.get("u")));
+            item.setQuantity(((Number) line.get("q")).intValue());
+            items.add(item);
+        }
+        request.setItems(items);
+        request.setTotalAmount(new BigDecimal(claims.get("subtotal", String.class)));
+        request.setCouponCode(claims.get("coupon", String.class));
+    }
+}
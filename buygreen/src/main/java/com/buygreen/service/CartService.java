@@ -1,6 +1,8 @@
 package com.buygreen.service;
 
 
+import com.buygreen.dto.CartSyncRequest;
+import com.buygreen.dto.CartSyncResult;
 import com.buygreen.model.Cart;
 
 import java.util.List;
@@ -8,7 +10,9 @@ import java.util.List;
 public interface CartService {
     String addToCart(Cart cart);
     List<Cart> getCartItems(Long customerId);
-    void removeFromCart(Long id);
+    void removeFromCart(Long customerId, Long productId);
     Cart decrementItem(Long customerId, Long productId);
     void clearCartByCustomerId(Long customerId);
+    // Replaces the whole cart, clamping each line to stock
+    CartSyncResult syncCart(Long customerId, CartSyncRequest request);
 }
@@ -1,98 +1,139 @@
 package com.buygreen.service;
 
+import com.buygreen.dto.CartSyncRequest;
+import com.buygreen.dto.CartSyncResult;
 import com.buygreen.model.Cart;
 import com.buygreen.model.Product;
-import com.buygreen.repository.CartRepository;
 import com.buygreen.repository.CustomerRepository;
-import com.buygreen.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+// Reads and edits go to the in-memory CartStore, which writes them back to the cart table
+// in the background. Product details come from the product cache, and lines are clamped to
+// what the cached product says is for sale, so no click queries the database. The exact
+// check is left to reserveCart and checkout
 @Service
 public class CartServiceImpl implements CartService {
 
     @Autowired
-    private CartRepository repo;
+    private CustomerRepository customerRepo;
 
     @Autowired
-    private CustomerRepository customerRepo;
+    private ProductService productService;
+
+    @Autowired
+    private CartStore cartStore;
 
     @Autowired
-    private ProductRepository productRepo;
+    private StockReservationService reservationService;
 
     @Override
     public String addToCart(Cart cart) {
-        // 1. Find the product to check its stock
-        Product product = productRepo.findById(cart.getProductId())
-                .orElse(null);
-
-        if (product == null) {
+        if (cart.getCustomerId() == null || cart.getProductId() == null) {
             return "Product not found";
         }
-
-        // 2. Find the existing cart item, if any
-        Cart existing = repo.findByCustomerIdAndProductId(cart.getCustomerId(), cart.getProductId());
-
-        int newQuantity;
-
-        if (existing != null) {
-            // This is an existing item, calculate the new total quantity
-            newQuantity = existing.getQuantity() + cart.getQuantity();
-        } else {
-            // This is a new item being added to the cart
-            newQuantity = cart.getQuantity();
+        if (cart.getQuantity() <= 0) {
+            return "Quantity must be greater than zero";
         }
-
-        // 3. This is the new stock check!
-        if (newQuantity > product.getStockQuantity()) {
-            // Not enough stock, return an error message
-            return "Not enough stock. Only " + product.getStockQuantity() + " available.";
+        Product product = productService.getProductById(cart.getProductId());
+        if (product == null) {
+            return "Product not found";
         }
 
-        // 4. If enough stock, save the cart
-        if (existing != null) {
-            existing.setQuantity(newQuantity);
-            repo.save(existing);
-        } else {
-            cart.setQuantity(newQuantity); // Set the quantity on the new cart item
-            repo.save(cart);
+        // Clamped to what is available: a partial fit fills the line up to it
+        int available = available(cart.getCustomerId(), product);
+        String name = cart.getProductName() != null ? cart.getProductName() : product.getName();
+        int added = cartStore.add(cart.getCustomerId(), cart.getProductId(), name,
+                cart.getPrice() != null ? cart.getPrice() : product.getPrice(), cart.getQuantity(), available);
+        if (added == 0) {
+            return "Not enough stock. Only " + available + " available.";
         }
-
         return "Item added to cart";
     }
 
     @Override
     public List<Cart> getCartItems(Long customerId) {
-        return repo.findByCustomerId(customerId);
+        return cartStore.getItems(customerId);
     }
 
     @Override
-    public void removeFromCart(Long id) {
-        repo.deleteById(id);
+    public void removeFromCart(Long customerId, Long productId) {
+        cartStore.remove(customerId, productId);
     }
 
     @Override
     public void clearCartByCustomerId(Long customerId) {
-        repo.deleteByCustomerId(customerId);
+        cartStore.clear(customerId);
     }
 
     @Override
-    public Cart decrementItem(Long customerId, Long productId) {
-        Cart existing = repo.findByCustomerIdAndProductId(customerId, productId);
-
-
-        if (existing == null) {
-            return null;
+    public CartSyncResult syncCart(Long customerId, CartSyncRequest request) {
+        // Requested units per product, repeated lines merged, in the order first listed
+        Map<Long, Integer> requested = new LinkedHashMap<>();
+        if (request.getItems() != null) {
+            for (CartSyncRequest.Line line : request.getItems()) {
+                if (line.getProductId() == null) {
+                    throw new IllegalArgumentException("Product ID is required for all items");
+                }
+                int quantity = line.getQuantity() == null ? 0 : line.getQuantity();
+                if (quantity < 0) {
+                    throw new IllegalArgumentException("Product quantity cannot be negative");
+                }
+                requested.merge(line.getProductId(), quantity, Integer::sum);
+            }
         }
 
-        if (existing.getQuantity() > 1) {
-            existing.setQuantity(existing.getQuantity() - 1);
-            return repo.save(existing);
+        // Every line at once: products from the cache, one IN query for the rest
+        Map<Long, Product> products = new HashMap<>();
+        List<Long> wanted = new ArrayList<>();
+        requested.forEach((productId, quantity) -> {
+            if (quantity > 0) {
+                wanted.add(productId);
+            }
+        });
+        if (!wanted.isEmpty()) {
+            productService.getProductsByIds(wanted).getProducts().forEach(p -> products.put(p.getId(), p));
         }
 
-        repo.delete(existing);
-        return null;
+        List<Cart> target = new ArrayList<>();
+        List<CartSyncResult.Adjustment> adjustments = new ArrayList<>();
+        requested.forEach((productId, quantity) -> {
+            if (quantity == 0) {
+                return;
+            }
+            Product product = products.get(productId);
+            if (product == null) {
+                adjustments.add(new CartSyncResult.Adjustment(productId, quantity, 0, "Product not found"));
+                return;
+            }
+            int stock = available(customerId, product);
+            int applied = Math.min(quantity, stock);
+            if (applied < quantity) {
+                adjustments.add(new CartSyncResult.Adjustment(productId, quantity, applied,
+                        "Not enough stock. Only " + stock + " available."));
+            }
+            if (applied > 0) {
+                target.add(new Cart(customerId, null, product.getPrice(), productId, product.getName(), applied));
+            }
+        });
+        return new CartSyncResult(cartStore.replace(customerId, target), adjustments);
+    }
+
+    @Override
+    public Cart decrementItem(Long customerId, Long productId) {
+        return cartStore.decrement(customerId, productId);
+    }
+
+    // Stock less open holds. A customer holding units themselves may fill up to all of the
+    // stock, since reserving again replaces their holds
+    private int available(Long customerId, Product product) {
+        int reserved = reservationService.isHolding(customerId) ? 0 : product.getReservedQuantity();
+        return Math.max(product.getStockQuantity() - reserved, 0);
     }
 }
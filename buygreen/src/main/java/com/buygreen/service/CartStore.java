@@ -0,0 +1,455 @@
+package com.buygreen.service;
+
+import com.buygreen.model.Cart;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Write-behind cart store. Each active customer's cart lives in memory, loaded from the
+ * cart table on first use; reads and edits never wait on the database. Edited lines are
+ * marked dirty and a single flusher thread writes them back in batches (absolute
+ * quantities, so a retried flush is harmless). Carts are kept per instance, so requests
+ * for one customer need to reach the same instance (sticky sessions) when scaled out.
+ * <p>
+ * Checkout clears a cart through {@link #clear}, which deletes the rows in the order's
+ * transaction and only empties the in-memory copy once that commits.
+ */
+@Component
+public class CartStore {
+
+    private static final Logger logger = Logger.getLogger(CartStore.class.getName());
+
+    private static final String UPSERT =
+            "INSERT INTO cart (customer_id, product_id, product_name, price, quantity) VALUES (?, ?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE quantity = ?";
+
+    private static final String DELETE_LINE = "DELETE FROM cart WHERE customer_id = ? AND product_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${cart.store.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${cart.store.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    @Value("${cart.store.idle-minutes:30}")
+    private long idleMinutes;
+
+    private final Map<Long, CustomerCart> carts = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyCustomers = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService flusher;
+
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private volatile long lastFlushLagMs;
+
+    @PostConstruct
+    void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "cart-store-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Stop the timer, then write out everything still dirty
+    @PreDestroy
+    void stop() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        int rounds = 0;
+        while (!dirtyCustomers.isEmpty() && rounds++ < 10) {
+            flushSafely();
+        }
+        if (!dirtyCustomers.isEmpty()) {
+            logger.warning(dirtyCustomers.size() + " carts could not be written back before shutdown");
+        }
+    }
+
+    public List<Cart> getItems(Long customerId) {
+        CustomerCart cart = cart(customerId);
+        synchronized (cart) {
+            List<Cart> items = new ArrayList<>(cart.lines.size());
+            cart.lines.values().forEach(line -> items.add(copy(line)));
+            return items;
+        }
+    }
+
+    /**
+     * Adds up to quantity units, never taking the line above stock. Returns the units
+     * actually added (0 when the cart already holds all of the stock).
+     */
+    public int add(Long customerId, Long productId, String productName, BigDecimal price, int quantity, int stock) {
+        CustomerCart cart = cart(customerId);
+        synchronized (cart) {
+            Cart line = cart.lines.get(productId);
+            int current = line == null ? 0 : line.getQuantity();
+            int target = Math.min(current + quantity, stock);
+            if (target <= current) {
+                return 0;
+            }
+            if (line == null) {
+                line = new Cart(customerId, null, price, productId, productName, target);
+                cart.lines.put(productId, line);
+            } else {
+                line.setQuantity(target);
+            }
+            markDirty(customerId, cart, productId);
+            return target - current;
+        }
+    }
+
+    /**
+     * Takes one unit off the line; returns the remaining line, or null if the line is gone.
+     */
+    public Cart decrement(Long customerId, Long productId) {
+        CustomerCart cart = cart(customerId);
+        synchronized (cart) {
+            Cart line = cart.lines.get(productId);
+            if (line == null) {
+                return null;
+            }
+            int remaining = line.getQuantity() - 1;
+            markDirty(customerId, cart, productId);
+            if (remaining <= 0) {
+                cart.lines.remove(productId);
+                return null;
+            }
+            line.setQuantity(remaining);
+            return copy(line);
+        }
+    }
+
+    /**
+     * Makes the cart hold exactly these lines (in this order), keeping name and price of
+     * lines already in it; only lines whose quantity actually changes are marked dirty.
+     * Returns the resulting cart.
+     */
+    public List<Cart> replace(Long customerId, List<Cart> target) {
+        CustomerCart cart = cart(customerId);
+        synchronized (cart) {
+            Map<Long, Cart> next = new LinkedHashMap<>();
+            for (Cart wanted : target) {
+                Cart line = cart.lines.remove(wanted.getProductId());
+                if (line == null) {
+                    line = copy(wanted);
+                    markDirty(customerId, cart, wanted.getProductId());
+                } else if (line.getQuantity() != wanted.getQuantity()) {
+                    line.setQuantity(wanted.getQuantity());
+                    markDirty(customerId, cart, wanted.getProductId());
+                }
+                next.put(line.getProductId(), line);
+            }
+            // Whatever is left was not asked for
+            for (Long productId : cart.lines.keySet()) {
+                markDirty(customerId, cart, productId);
+            }
+            cart.lines.clear();
+            cart.lines.putAll(next);
+
+            List<Cart> items = new ArrayList<>(next.size());
+            next.values().forEach(line -> items.add(copy(line)));
+            return items;
+        }
+    }
+
+    public void remove(Long customerId, Long productId) {
+        CustomerCart cart = cart(customerId);
+        synchronized (cart) {
+            if (cart.lines.remove(productId) != null) {
+                markDirty(customerId, cart, productId);
+            }
+        }
+    }
+
+    /**
+     * Deletes the customer's cart rows, in the caller's transaction if there is one. A flush
+     * already writing this cart is waited for first, so it cannot put lines back afterwards,
+     * and the cart is not flushed again until the transaction ends. The in-memory copy is
+     * emptied on commit and left as it was on rollback.
+     */
+    public void clear(Long customerId) {
+        CustomerCart cart = cart(customerId);
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        synchronized (cart) {
+            awaitFlush(cart);
+            if (inTransaction) {
+                cart.clearing++;
+            } else {
+                empty(cart);
+            }
+        }
+        if (inTransaction) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    synchronized (cart) {
+                        cart.clearing--;
+                        if (status == STATUS_COMMITTED) {
+                            empty(cart);
+                        }
+                    }
+                }
+            });
+        }
+        jdbcTemplate.update("DELETE FROM cart WHERE customer_id = ?", customerId);
+    }
+
+    private static void empty(CustomerCart cart) {
+        cart.lines.clear();
+        cart.dirty.clear();
+        cart.dirtySince = 0;
+    }
+
+    private static void awaitFlush(CustomerCart cart) {
+        boolean interrupted = false;
+        while (cart.flushing) {
+            try {
+                cart.wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Stamps the access time atomically with evictIdle, so a cart handed out here is never one
+    // that is being evicted. A missing cart is loaded outside the map (a bin lock is never held
+    // across a query) and installed only if nobody installed one first and no eviction ran
+    // meanwhile; otherwise the loaded copy may be older than what was evicted, so load again.
+    private CustomerCart cart(Long customerId) {
+        while (true) {
+            CustomerCart cached = carts.computeIfPresent(customerId, (id, cart) -> touch(cart));
+            if (cached != null) {
+                return cached;
+            }
+            long evictionsBefore = evictions.get();
+            CustomerCart loaded = load(customerId);
+            CustomerCart current = carts.compute(customerId, (id, cart) -> {
+                if (cart != null) {
+                    return touch(cart);
+                }
+                return evictions.get() == evictionsBefore ? touch(loaded) : null;
+            });
+            if (current != null) {
+                return current;
+            }
+        }
+    }
+
+    private static CustomerCart touch(CustomerCart cart) {
+        cart.lastAccess = System.currentTimeMillis();
+        return cart;
+    }
+
+    private CustomerCart load(Long customerId) {
+        CustomerCart cart = new CustomerCart();
+        jdbcTemplate.query("SELECT id, product_id, product_name, price, quantity FROM cart WHERE customer_id = ? "
+                + "ORDER BY id", rs -> {
+            Cart line = new Cart(customerId, rs.getLong(1), rs.getBigDecimal(4), rs.getLong(2), rs.getString(3),
+                    rs.getInt(5));
+            cart.lines.put(line.getProductId(), line);
+        }, customerId);
+        return cart;
+    }
+
+    private void markDirty(Long customerId, CustomerCart cart, Long productId) {
+        cart.dirty.add(productId);
+        if (cart.dirtySince == 0) {
+            cart.dirtySince = System.currentTimeMillis();
+        }
+        dirtyCustomers.add(customerId);
+    }
+
+    private void flushSafely() {
+        try {
+            while (flush() >= flushBatchSize) {
+                // A full batch means more carts are probably waiting
+            }
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Cart flush failed", e);
+        }
+    }
+
+    // Writes the dirty lines of up to flushBatchSize carts as one upsert batch and one delete batch
+    int flush() {
+        List<Long> customerIds = new ArrayList<>();
+        List<CustomerCart> batch = new ArrayList<>();
+        List<Snapshot> snapshots = new ArrayList<>();
+        List<Object[]> upserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        long oldest = 0;
+
+        for (Long customerId : dirtyCustomers) {
+            if (batch.size() >= flushBatchSize) {
+                break;
+            }
+            dirtyCustomers.remove(customerId);
+            CustomerCart cart = carts.get(customerId);
+            if (cart == null) {
+                continue;
+            }
+            synchronized (cart) {
+                if (cart.dirty.isEmpty()) {
+                    continue;
+                }
+                if (cart.clearing > 0) {
+                    // Checkout in progress; whatever is left dirty afterwards goes in a later flush
+                    dirtyCustomers.add(customerId);
+                    continue;
+                }
+                for (Long productId : cart.dirty) {
+                    Cart line = cart.lines.get(productId);
+                    if (line == null) {
+                        deletes.add(new Object[]{customerId, productId});
+                    } else {
+                        upserts.add(new Object[]{customerId, productId, line.getProductName(), line.getPrice(),
+                                line.getQuantity(), line.getQuantity()});
+                    }
+                }
+                snapshots.add(new Snapshot(new HashSet<>(cart.dirty), cart.dirtySince));
+                oldest = oldest == 0 ? cart.dirtySince : Math.min(oldest, cart.dirtySince);
+                cart.dirty.clear();
+                cart.dirtySince = 0;
+                cart.flushing = true;
+            }
+            customerIds.add(customerId);
+            batch.add(cart);
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        boolean written = false;
+        try {
+            if (!upserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPSERT, upserts);
+            }
+            if (!deletes.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_LINE, deletes);
+            }
+            written = true;
+            flushes.incrementAndGet();
+            rowsWritten.addAndGet(upserts.size() + deletes.size());
+            lastFlushLagMs = System.currentTimeMillis() - oldest;
+        } finally {
+            for (int i = 0; i < batch.size(); i++) {
+                CustomerCart cart = batch.get(i);
+                synchronized (cart) {
+                    if (!written) {
+                        // Keep the lines dirty (and their age) for the next attempt
+                        Snapshot snapshot = snapshots.get(i);
+                        cart.dirty.addAll(snapshot.productIds());
+                        cart.dirtySince = cart.dirtySince == 0 ? snapshot.dirtySince()
+                                : Math.min(cart.dirtySince, snapshot.dirtySince());
+                        dirtyCustomers.add(customerIds.get(i));
+                    }
+                    cart.flushing = false;
+                    cart.notifyAll();
+                }
+            }
+            if (!written) {
+                flushFailures.incrementAndGet();
+            }
+        }
+        return batch.size();
+    }
+
+    // Drops carts nobody has touched for a while; dirty or checking-out carts stay until written
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(idleMinutes);
+        for (Long customerId : carts.keySet()) {
+            carts.computeIfPresent(customerId, (id, cart) -> {
+                synchronized (cart) {
+                    boolean idle = cart.lastAccess < cutoff && cart.dirty.isEmpty() && !cart.flushing
+                            && cart.clearing == 0;
+                    if (idle) {
+                        evictions.incrementAndGet();
+                        return null;
+                    }
+                    return cart;
+                }
+            });
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long now = System.currentTimeMillis();
+        long oldestDirty = 0;
+        int dirtyLines = 0;
+        for (Long customerId : dirtyCustomers) {
+            CustomerCart cart = carts.get(customerId);
+            if (cart == null) {
+                continue;
+            }
+            synchronized (cart) {
+                dirtyLines += cart.dirty.size();
+                if (cart.dirtySince != 0) {
+                    oldestDirty = oldestDirty == 0 ? cart.dirtySince : Math.min(oldestDirty, cart.dirtySince);
+                }
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cachedCarts", carts.size());
+        stats.put("dirtyCarts", dirtyCustomers.size());
+        stats.put("dirtyLines", dirtyLines);
+        // Age of the oldest change not yet in the database
+        stats.put("flushLagMs", oldestDirty == 0 ? 0 : now - oldestDirty);
+        stats.put("lastFlushLagMs", lastFlushLagMs);
+        stats.put("flushes", flushes.get());
+        stats.put("rowsWritten", rowsWritten.get());
+        stats.put("flushFailures", flushFailures.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private static Cart copy(Cart line) {
+        return new Cart(line.getCustomerId(), line.getId(), line.getPrice(), line.getProductId(),
+                line.getProductName(), line.getQuantity());
+    }
+
+    // Guarded by its own monitor
+    private static final class CustomerCart {
+        final Map<Long, Cart> lines = new LinkedHashMap<>();
+        // Products whose line (or its absence) is not in the database yet
+        final Set<Long> dirty = new HashSet<>();
+        long dirtySince;
+        boolean flushing;
+        int clearing;
+        volatile long lastAccess;
+    }
+
+    private record Snapshot(Set<Long> productIds, long dirtySince) {
+    }
+}
@@ -0,0 +1,58 @@
+package com.buygreen.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+
+/**
+ * Catalog-wide validator for listing and search responses. The products table is read once
+ * (row count, sum of row versions, latest updated_at) to seed it, so a restart over an
+ * unchanged catalog keeps handing out the same ETag. After that it is an in-memory counter
+ * moved by the same hooks that refresh the product cache, so reads never touch the database.
+ * Once changed, the ETag carries this instance's boot id, so two instances that have each
+ * seen a different number of changes can never hand out the same value.
+ */
+@Component
+public class CatalogVersion {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+
+    private String seed;
+
+    private long changes;
+
+    private volatile Validator current;
+
+    public record Validator(String etag, long lastModified) {
+    }
+
+    public synchronized void bump() {
+        seeded();
+        changes++;
+        current = new Validator("\"c" + seed + "-" + instance + "." + changes + "\"", System.currentTimeMillis());
+    }
+
+    public Validator current() {
+        Validator validator = current;
+        return validator != null ? validator : seeded();
+    }
+
+    private synchronized Validator seeded() {
+        if (current == null) {
+            seed = jdbcTemplate.query("SELECT COUNT(*), COALESCE(SUM(version), 0), MAX(updated_at) FROM products",
+                    rs -> {
+                        rs.next();
+                        Timestamp latest = rs.getTimestamp(3);
+                        return rs.getLong(1) + "-" + rs.getLong(2) + "-" + (latest != null ? latest.getTime() : 0);
+                    });
+            // Deletes before the restart did not move MAX(updated_at), so nothing older than now is safe
+            current = new Validator("\"c" + seed + "\"", System.currentTimeMillis());
+        }
+        return current;
+    }
+}
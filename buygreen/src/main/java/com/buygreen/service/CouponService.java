@@ -7,5 +7,6 @@ public interface CouponService {
     Coupon validateCoupon(String code, BigDecimal orderTotal);
     Coupon applyCoupon(String code, BigDecimal orderTotal);
     Coupon getCouponByCode(String code);
+    Coupon updateCoupon(Long id, Coupon coupon);
 }
 
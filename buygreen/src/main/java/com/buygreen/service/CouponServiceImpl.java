@@ -4,7 +4,6 @@ import com.buygreen.model.Coupon;
 import com.buygreen.repository.CouponRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 
@@ -14,6 +13,9 @@ public class CouponServiceImpl implements CouponService {
     @Autowired
     private CouponRepository couponRepository;
 
+    @Autowired
+    private TransactionRetry transactionRetry;
+
     @Override
     public Coupon validateCoupon(String code, BigDecimal orderTotal) {
         if (code == null || code.trim().isEmpty()) {
@@ -40,15 +42,43 @@ public class CouponServiceImpl implements CouponService {
     }
 
     @Override
-    @Transactional
     public Coupon applyCoupon(String code, BigDecimal orderTotal) {
-        Coupon coupon = validateCoupon(code, orderTotal);
-        
-        // Increment usage count
-        coupon.setUsedCount(coupon.getUsedCount() + 1);
-        couponRepository.save(coupon);
-        
-        return coupon;
+        // Re-validated on every attempt, so a retry sees the usage count the winner left behind
+        return transactionRetry.execute("applyCoupon", () -> {
+            Coupon coupon = validateCoupon(code, orderTotal);
+
+            // Increment usage count
+            coupon.setUsedCount(coupon.getUsedCount() + 1);
+            return couponRepository.save(coupon);
+        });
+    }
+
+    @Override
+    public Coupon updateCoupon(Long id, Coupon coupon) {
+        return transactionRetry.execute("updateCoupon", () -> {
+            Coupon existing = couponRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Coupon not found"));
+            if (coupon.getVersion() != null && !coupon.getVersion().equals(existing.getVersion())) {
+                throw new IllegalStateException("Coupon was changed by someone else; reload it and try again");
+            }
+
+            // Check if code is being changed and if new code already exists
+            if (!existing.getCode().equalsIgnoreCase(coupon.getCode())
+                    && couponRepository.findByCode(coupon.getCode().toUpperCase()).isPresent()) {
+                throw new IllegalArgumentException("Coupon code already exists");
+            }
+
+            // usedCount is owned by checkout and is not taken from the request
+            existing.setCode(coupon.getCode().toUpperCase());
+            existing.setDiscountType(coupon.getDiscountType());
+            existing.setDiscountValue(coupon.getDiscountValue());
+            existing.setMinOrderAmount(coupon.getMinOrderAmount());
+            existing.setMaxDiscount(coupon.getMaxDiscount());
+            existing.setExpiryDate(coupon.getExpiryDate());
+            existing.setUsageLimit(coupon.getUsageLimit());
+            existing.setIsActive(coupon.getIsActive());
+            return couponRepository.saveAndFlush(existing);
+        });
     }
 
     @Override
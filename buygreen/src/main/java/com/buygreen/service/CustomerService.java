@@ -1,5 +1,6 @@
 package com.buygreen.service;
 
+import com.buygreen.dto.CursorPage;
 import com.buygreen.model.Customers;
 import java.util.List;
 import org.springframework.data.domain.Page;
@@ -16,6 +17,7 @@ public interface CustomerService {
     String createPasswordResetToken(String email);
     boolean resetPassword(String token, String newPassword);
     Page<Customers> getAllCustomers(Pageable pageable);
+    CursorPage<Customers> scrollCustomers(String cursor, int size, boolean includeTotal);
     Customers updateProfile(String email, Customers updatedCustomer);
     Customers getCustomerById(Long id);
     void deleteCustomer(Long id);
@@ -1,5 +1,6 @@
 package com.buygreen.service;
 
+import com.buygreen.dto.CursorPage;
 import com.buygreen.model.Customers;
 import com.buygreen.repository.CustomerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +10,7 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import java.util.List;
 import java.util.UUID;
@@ -66,6 +68,16 @@ public class CustomerServiceImplementation implements CustomerService, UserDetai
         return repo.findAll(pageable);
     }
 
+    private final CachedCount customerCount = new CachedCount(() -> repo.count(), 60_000);
+
+    @Override
+    public CursorPage<Customers> scrollCustomers(String cursor, int size, boolean includeTotal) {
+        long afterId = cursor != null ? CursorPage.Cursor.decode(cursor).id() : 0L;
+        List<Customers> rows = repo.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, size + 1));
+        return CursorPage.of(rows, size, c -> new CursorPage.Cursor(String.valueOf(c.getId()), c.getId()),
+                includeTotal ? customerCount.get() : null);
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         Customers customer = repo.findByEmail(username);
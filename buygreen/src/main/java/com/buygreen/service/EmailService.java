@@ -1,5 +1,6 @@
 package com.buygreen.service;
 
+import com.buygreen.dto.OrderNotification;
 import com.buygreen.model.Order;
 import com.sendgrid.Method;
 import com.sendgrid.Request;
@@ -52,6 +53,11 @@ public class EmailService {
     @Value("${email.service.mode:auto}")
     private String emailServiceMode;
 
+    // Null when admin notifications are not configured
+    public String getAdminEmail() {
+        return adminEmail == null || adminEmail.trim().isEmpty() ? null : adminEmail.trim();
+    }
+
     @jakarta.annotation.PostConstruct
     public void init() {
         System.out.println("=== EMAIL SERVICE INITIALIZATION ===");
@@ -267,250 +273,214 @@ public class EmailService {
         }
     }
 
-    @Async("taskExecutor")
-    public void sendOrderConfirmationEmail(String toEmail, Order order, String customerName) {
-        try {
-            logger.info("Sending order confirmation email to: " + toEmail + " for order #" + order.getId());
-            String subject = "Order Confirmation - Order #" + order.getId();
-
-            StringBuilder body = new StringBuilder();
-            body.append("Dear ").append(customerName).append(",\n\n");
-            body.append("Thank you for your order! We're excited to confirm your purchase.\n\n");
-            body.append("Order Details:\n");
-            body.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
-            body.append("Order ID: #").append(order.getId()).append("\n");
-            body.append("Order Date: ")
-                    .append(order.getOrderDate().format(DateTimeFormatter.ofPattern("MMMM dd, yyyy 'at' hh:mm a")))
-                    .append("\n");
-            body.append("Status: ").append(order.getStatus()).append("\n");
-            body.append("Total Amount: ₹").append(order.getTotalAmount()).append("\n\n");
-
-            if (order.getShippingAddress() != null && !order.getShippingAddress().isEmpty()) {
-                body.append("Shipping Address:\n");
-                body.append(order.getShippingAddress()).append("\n\n");
-            }
+    // The order emails run on the outbox dispatcher thread and throw on failure, so the
+    // dispatcher can retry them
+    public void sendOrderConfirmationEmail(String toEmail, OrderNotification order) throws Exception {
+        logger.info("Sending order confirmation email to: " + toEmail + " for order #" + order.orderId());
+        String subject = "Order Confirmation - Order #" + order.orderId();
+
+        StringBuilder body = new StringBuilder();
+        body.append("Dear ").append(order.customerName()).append(",\n\n");
+        body.append("Thank you for your order! We're excited to confirm your purchase.\n\n");
+        body.append("Order Details:\n");
+        body.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
+        body.append("Order ID: #").append(order.orderId()).append("\n");
+        body.append("Order Date: ")
+                .append(order.orderDate().format(DateTimeFormatter.ofPattern("MMMM dd, yyyy 'at' hh:mm a")))
+                .append("\n");
+        body.append("Status: ").append(order.status()).append("\n");
+        body.append("Total Amount: ₹").append(order.totalAmount()).append("\n\n");
+
+        if (order.shippingAddress() != null && !order.shippingAddress().isEmpty()) {
+            body.append("Shipping Address:\n");
+            body.append(order.shippingAddress()).append("\n\n");
+        }
 
-            StringBuilder fullAddress = new StringBuilder();
-            if (order.getStreet() != null && !order.getStreet().isEmpty()) {
-                fullAddress.append(order.getStreet());
-            }
-            if (order.getCity() != null && !order.getCity().isEmpty()) {
-                if (fullAddress.length() > 0)
-                    fullAddress.append(", ");
-                fullAddress.append(order.getCity());
-            }
-            if (order.getState() != null && !order.getState().isEmpty()) {
-                if (fullAddress.length() > 0)
-                    fullAddress.append(", ");
-                fullAddress.append(order.getState());
-            }
-            if (order.getPincode() != null && !order.getPincode().isEmpty()) {
-                if (fullAddress.length() > 0)
-                    fullAddress.append(" - ");
-                fullAddress.append(order.getPincode());
-            }
-            if (order.getCountry() != null && !order.getCountry().isEmpty()) {
-                if (fullAddress.length() > 0)
-                    fullAddress.append(", ");
-                fullAddress.append(order.getCountry());
-            }
+        StringBuilder fullAddress = new StringBuilder();
+        if (order.street() != null && !order.street().isEmpty()) {
+            fullAddress.append(order.street());
+        }
+        if (order.city() != null && !order.city().isEmpty()) {
+            if (fullAddress.length() > 0)
+                fullAddress.append(", ");
+            fullAddress.append(order.city());
+        }
+        if (order.state() != null && !order.state().isEmpty()) {
+            if (fullAddress.length() > 0)
+                fullAddress.append(", ");
+            fullAddress.append(order.state());
+        }
+        if (order.pincode() != null && !order.pincode().isEmpty()) {
+            if (fullAddress.length() > 0)
+                fullAddress.append(" - ");
+            fullAddress.append(order.pincode());
+        }
+        if (order.country() != null && !order.country().isEmpty()) {
+            if (fullAddress.length() > 0)
+                fullAddress.append(", ");
+            fullAddress.append(order.country());
+        }
 
-            if (fullAddress.length() > 0) {
-                body.append("Delivery Address:\n");
-                body.append(fullAddress.toString()).append("\n\n");
-            }
+        if (fullAddress.length() > 0) {
+            body.append("Delivery Address:\n");
+            body.append(fullAddress.toString()).append("\n\n");
+        }
 
-            if (order.getLocation() != null && !order.getLocation().isEmpty()) {
-                body.append("Location/Landmark:\n");
-                body.append(order.getLocation()).append("\n\n");
-            }
+        if (order.location() != null && !order.location().isEmpty()) {
+            body.append("Location/Landmark:\n");
+            body.append(order.location()).append("\n\n");
+        }
 
-            body.append("Items Ordered:\n");
-            if (order.getItems() != null) {
-                order.getItems().forEach(item -> body.append("  • ")
-                        .append(item.getProductName())
-                        .append(" (Qty: ")
-                        .append(item.getQuantity())
-                        .append(") - ₹")
-                        .append(item.getPrice().multiply(java.math.BigDecimal.valueOf(item.getQuantity())))
-                        .append("\n"));
-            }
+        body.append("Items Ordered:\n");
+        if (order.items() != null) {
+            order.items().forEach(item -> body.append("  • ")
+                    .append(item.productName())
+                    .append(" (Qty: ")
+                    .append(item.quantity())
+                    .append(") - ₹")
+                    .append(item.price().multiply(java.math.BigDecimal.valueOf(item.quantity())))
+                    .append("\n"));
+        }
 
-            body.append("\n━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
-            body.append("We'll send you another email when your order ships.\n\n");
-            body.append("Thank you for choosing buygreen.!\n");
-            body.append("If you have any questions, please contact us at ")
-                    .append(senderEmail != null && !senderEmail.isEmpty() ? senderEmail : "support@buygreen.com")
-                    .append("\n");
+        body.append("\n━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
+        body.append("We'll send you another email when your order ships.\n\n");
+        body.append("Thank you for choosing buygreen.!\n");
+        body.append("If you have any questions, please contact us at ")
+                .append(senderEmail != null && !senderEmail.isEmpty() ? senderEmail : "support@buygreen.com")
+                .append("\n");
 
-            sendEmail(toEmail, subject, body.toString());
-            logger.info("Order confirmation email sent successfully to: " + toEmail + " for order #" + order.getId());
-        } catch (Exception e) {
-            logger.severe("Failed to send order confirmation email to " + toEmail + " for order #" + order.getId()
-                    + ": " + e.getMessage());
-            e.printStackTrace();
-        }
+        sendEmail(toEmail, subject, body.toString());
+        logger.info("Order confirmation email sent successfully to: " + toEmail + " for order #" + order.orderId());
     }
 
-    @Async("taskExecutor")
-    public void sendOrderStatusUpdateEmail(String toEmail, Order order, String customerName) {
-        try {
-            System.out.println("=== EMAIL SERVICE: Starting to send order status update email ===");
-            System.out.println("To: " + toEmail);
-            System.out.println("Order ID: " + order.getId());
-            System.out.println("Status: " + order.getStatus());
-            System.out.println("From Email (Auth): " + (fromEmail != null ? fromEmail : "NOT SET"));
-            System.out.println("Sender Email (Display): " + (senderEmail != null ? senderEmail : "NOT SET"));
-            System.out.println("Mail Sender: " + (mailSender != null ? "INITIALIZED" : "NULL"));
+    public void sendOrderStatusUpdateEmail(String toEmail, OrderNotification order) throws Exception {
+        logger.info("Sending order status update email to: " + toEmail + " for order #" + order.orderId()
+                + " with status: " + order.status());
 
-            logger.info("Sending order status update email to: " + toEmail + " for order #" + order.getId()
-                    + " with status: " + order.getStatus());
+        String subject = "Order Update - Order #" + order.orderId();
 
-            String subject = "Order Update - Order #" + order.getId();
+        StringBuilder body = new StringBuilder();
+        body.append("Dear ").append(order.customerName()).append(",\n\n");
+        body.append("Your order status has been updated.\n\n");
+        body.append("Order ID: #").append(order.orderId()).append("\n");
+        body.append("New Status: ").append(order.status()).append("\n\n");
 
-            StringBuilder body = new StringBuilder();
-            body.append("Dear ").append(customerName).append(",\n\n");
-            body.append("Your order status has been updated.\n\n");
-            body.append("Order ID: #").append(order.getId()).append("\n");
-            body.append("New Status: ").append(order.getStatus()).append("\n\n");
-
-            if (order.getStatus() == Order.OrderStatus.SHIPPED && order.getTrackingNumber() != null) {
-                body.append("Tracking Number: ").append(order.getTrackingNumber()).append("\n");
-                body.append("You can track your order using this tracking number.\n\n");
-            }
+        if (order.status() == Order.OrderStatus.SHIPPED && order.trackingNumber() != null) {
+            body.append("Tracking Number: ").append(order.trackingNumber()).append("\n");
+            body.append("You can track your order using this tracking number.\n\n");
+        }
 
-            if (order.getStatus() == Order.OrderStatus.DELIVERED) {
-                body.append("Your order has been delivered! We hope you enjoy your purchase.\n\n");
-                body.append("Please consider leaving a review for the products you purchased.\n\n");
-            }
+        if (order.status() == Order.OrderStatus.DELIVERED) {
+            body.append("Your order has been delivered! We hope you enjoy your purchase.\n\n");
+            body.append("Please consider leaving a review for the products you purchased.\n\n");
+        }
 
-            body.append("Thank you for shopping with buygreen.!\n");
-            body.append("If you have any questions, please contact us at ")
-                    .append(senderEmail != null && !senderEmail.isEmpty() ? senderEmail : "support@buygreen.com")
-                    .append("\n");
+        body.append("Thank you for shopping with buygreen.!\n");
+        body.append("If you have any questions, please contact us at ")
+                .append(senderEmail != null && !senderEmail.isEmpty() ? senderEmail : "support@buygreen.com")
+                .append("\n");
 
-            sendEmail(toEmail, subject, body.toString());
-            logger.info("Order status update email sent successfully to: " + toEmail + " for order #" + order.getId());
-        } catch (Exception e) {
-            System.err.println("=== EMAIL SEND FAILED ===");
-            System.err.println("Error: " + e.getMessage());
-            System.err.println("Error Class: " + e.getClass().getName());
-            logger.severe("Failed to send order status update email to " + toEmail + " for order #" + order.getId()
-                    + ": " + e.getMessage());
-            e.printStackTrace();
-        }
+        sendEmail(toEmail, subject, body.toString());
+        logger.info("Order status update email sent successfully to: " + toEmail + " for order #" + order.orderId());
     }
 
-    @Async("taskExecutor")
-    public void sendNewOrderNotificationToAdmin(Order order, String customerName, String customerEmail) {
-        try {
-            if (adminEmail == null || adminEmail.trim().isEmpty()) {
-                logger.warning("Admin email not configured. Skipping admin notification for order #" + order.getId());
-                return;
-            }
-
-            logger.info("Sending new order notification to admin: " + adminEmail + " for order #" + order.getId());
-            String subject = "New Order Received - Order #" + order.getId();
+    public void sendNewOrderNotificationToAdmin(String toEmail, OrderNotification order) throws Exception {
+        logger.info("Sending new order notification to admin: " + toEmail + " for order #" + order.orderId());
+        String subject = "New Order Received - Order #" + order.orderId();
+
+        StringBuilder body = new StringBuilder();
+        body.append("Hello Admin,\n\n");
+        body.append("A new order has been placed on BuyGreen!\n\n");
+        body.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
+        body.append("ORDER DETAILS\n");
+        body.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
+        body.append("Order ID: #").append(order.orderId()).append("\n");
+        body.append("Order Date: ")
+                .append(order.orderDate().format(DateTimeFormatter.ofPattern("MMMM dd, yyyy 'at' hh:mm a")))
+                .append("\n");
+        body.append("Status: ").append(order.status()).append("\n");
+        body.append("Total Amount: ₹").append(order.totalAmount()).append("\n\n");
+
+        body.append("CUSTOMER INFORMATION\n");
+        body.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
+        body.append("Customer Name: ").append(order.customerName() != null ? order.customerName() : "N/A").append("\n");
+        body.append("Customer Email: ").append(order.customerEmail() != null ? order.customerEmail() : "N/A").append("\n\n");
+
+        // Build complete address
+        StringBuilder fullAddress = new StringBuilder();
+        if (order.street() != null && !order.street().isEmpty()) {
+            fullAddress.append(order.street());
+        }
+        if (order.city() != null && !order.city().isEmpty()) {
+            if (fullAddress.length() > 0)
+                fullAddress.append(", ");
+            fullAddress.append(order.city());
+        }
+        if (order.state() != null && !order.state().isEmpty()) {
+            if (fullAddress.length() > 0)
+                fullAddress.append(", ");
+            fullAddress.append(order.state());
+        }
+        if (order.pincode() != null && !order.pincode().isEmpty()) {
+            if (fullAddress.length() > 0)
+                fullAddress.append(" - ");
+            fullAddress.append(order.pincode());
+        }
+        if (order.country() != null && !order.country().isEmpty()) {
+            if (fullAddress.length() > 0)
+                fullAddress.append(", ");
+            fullAddress.append(order.country());
+        }
 
-            StringBuilder body = new StringBuilder();
-            body.append("Hello Admin,\n\n");
-            body.append("A new order has been placed on BuyGreen!\n\n");
-            body.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
-            body.append("ORDER DETAILS\n");
+        if (fullAddress.length() > 0) {
+            body.append("DELIVERY ADDRESS\n");
             body.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
-            body.append("Order ID: #").append(order.getId()).append("\n");
-            body.append("Order Date: ")
-                    .append(order.getOrderDate().format(DateTimeFormatter.ofPattern("MMMM dd, yyyy 'at' hh:mm a")))
-                    .append("\n");
-            body.append("Status: ").append(order.getStatus()).append("\n");
-            body.append("Total Amount: ₹").append(order.getTotalAmount()).append("\n\n");
-
-            body.append("CUSTOMER INFORMATION\n");
-            body.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
-            body.append("Customer Name: ").append(customerName != null ? customerName : "N/A").append("\n");
-            body.append("Customer Email: ").append(customerEmail != null ? customerEmail : "N/A").append("\n\n");
-
-            // Build complete address
-            StringBuilder fullAddress = new StringBuilder();
-            if (order.getStreet() != null && !order.getStreet().isEmpty()) {
-                fullAddress.append(order.getStreet());
-            }
-            if (order.getCity() != null && !order.getCity().isEmpty()) {
-                if (fullAddress.length() > 0)
-                    fullAddress.append(", ");
-                fullAddress.append(order.getCity());
-            }
-            if (order.getState() != null && !order.getState().isEmpty()) {
-                if (fullAddress.length() > 0)
-                    fullAddress.append(", ");
-                fullAddress.append(order.getState());
-            }
-            if (order.getPincode() != null && !order.getPincode().isEmpty()) {
-                if (fullAddress.length() > 0)
-                    fullAddress.append(" - ");
-                fullAddress.append(order.getPincode());
-            }
-            if (order.getCountry() != null && !order.getCountry().isEmpty()) {
-                if (fullAddress.length() > 0)
-                    fullAddress.append(", ");
-                fullAddress.append(order.getCountry());
+            body.append(fullAddress.toString()).append("\n");
+            if (order.location() != null && !order.location().isEmpty()) {
+                body.append("Location/Landmark: ").append(order.location()).append("\n");
             }
+            body.append("\n");
+        }
 
-            if (fullAddress.length() > 0) {
-                body.append("DELIVERY ADDRESS\n");
-                body.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
-                body.append(fullAddress.toString()).append("\n");
-                if (order.getLocation() != null && !order.getLocation().isEmpty()) {
-                    body.append("Location/Landmark: ").append(order.getLocation()).append("\n");
-                }
-                body.append("\n");
-            }
+        if (order.shippingAddress() != null && !order.shippingAddress().isEmpty()) {
+            body.append("SHIPPING ADDRESS\n");
+            body.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
+            body.append(order.shippingAddress()).append("\n\n");
+        }
 
-            if (order.getShippingAddress() != null && !order.getShippingAddress().isEmpty()) {
-                body.append("SHIPPING ADDRESS\n");
-                body.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
-                body.append(order.getShippingAddress()).append("\n\n");
+        body.append("ORDER ITEMS\n");
+        body.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
+        if (order.items() != null && !order.items().isEmpty()) {
+            int itemNumber = 1;
+            for (var item : order.items()) {
+                body.append(itemNumber++).append(". ").append(item.productName())
+                        .append("\n   Quantity: ").append(item.quantity())
+                        .append("\n   Price: ₹").append(item.price())
+                        .append("\n   Subtotal: ₹")
+                        .append(item.price().multiply(java.math.BigDecimal.valueOf(item.quantity())))
+                        .append("\n\n");
             }
+        } else {
+            body.append("No items found in order.\n\n");
+        }
 
-            body.append("ORDER ITEMS\n");
+        if (order.couponCode() != null && !order.couponCode().isEmpty()) {
+            body.append("COUPON APPLIED\n");
             body.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
-            if (order.getItems() != null && !order.getItems().isEmpty()) {
-                int itemNumber = 1;
-                for (var item : order.getItems()) {
-                    body.append(itemNumber++).append(". ").append(item.getProductName())
-                            .append("\n   Quantity: ").append(item.getQuantity())
-                            .append("\n   Price: ₹").append(item.getPrice())
-                            .append("\n   Subtotal: ₹")
-                            .append(item.getPrice().multiply(java.math.BigDecimal.valueOf(item.getQuantity())))
-                            .append("\n\n");
-                }
-            } else {
-                body.append("No items found in order.\n\n");
-            }
-
-            if (order.getCouponCode() != null && !order.getCouponCode().isEmpty()) {
-                body.append("COUPON APPLIED\n");
-                body.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
-                body.append("Coupon Code: ").append(order.getCouponCode()).append("\n");
-                if (order.getDiscountAmount() != null) {
-                    body.append("Discount Amount: ₹").append(order.getDiscountAmount()).append("\n");
-                }
-                body.append("\n");
+            body.append("Coupon Code: ").append(order.couponCode()).append("\n");
+            if (order.discountAmount() != null) {
+                body.append("Discount Amount: ₹").append(order.discountAmount()).append("\n");
             }
+            body.append("\n");
+        }
 
-            body.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
-            body.append("Please process this order and update its status in the admin dashboard.\n\n");
-            body.append("Admin Dashboard: ").append(frontendUrl).append("/admin/dashboard\n\n");
-            body.append("This is an automated notification from BuyGreen.\n");
+        body.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
+        body.append("Please process this order and update its status in the admin dashboard.\n\n");
+        body.append("Admin Dashboard: ").append(frontendUrl).append("/admin/dashboard\n\n");
+        body.append("This is an automated notification from BuyGreen.\n");
 
-            sendEmail(adminEmail, subject, body.toString());
-            logger.info("New order notification sent successfully to admin: " + adminEmail + " for order #"
-                    + order.getId());
-        } catch (Exception e) {
-            logger.severe("Failed to send new order notification to admin for order #" + order.getId() + ": "
-                    + e.getMessage());
-            e.printStackTrace();
-            // Don't throw - admin notification failure shouldn't break order creation
-        }
+        sendEmail(toEmail, subject, body.toString());
+        logger.info("New order notification sent successfully to admin: " + toEmail + " for order #"
+                + order.orderId());
     }
 }
\ No newline at end of file
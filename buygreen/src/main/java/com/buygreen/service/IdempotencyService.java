@@ -0,0 +1,342 @@
+package com.buygreen.service;
+
+import com.buygreen.model.IdempotencyRecord;
+import com.buygreen.repository.IdempotencyRecordRepository;
+import com.buygreen.repository.OrderRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Idempotency-Key support: the first request with a key runs, its response is stored,
+ * and any repeat of the key within the TTL gets that stored response back instead of
+ * running again. The idempotency_keys table is the source of truth (and what makes a
+ * key claim atomic across instances); a bounded in-memory map of recent responses sits
+ * in front of it, and duplicates that arrive while the first request is still running
+ * on this instance wait for its result instead of hitting the database.
+ * <p>
+ * The order placed under a key is attached to its claim row inside the order's own
+ * transaction. A claim with an order is never expired or taken over: if the stored
+ * response was lost (crash or error after the commit) a retry gets the order back, and an
+ * attempt whose claim was taken over by a retry fails to attach and rolls its order back.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = Logger.getLogger(IdempotencyService.class.getName());
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 128;
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${idempotency.in-progress-timeout-seconds:60}")
+    private long inProgressTimeoutSeconds;
+
+    @Value("${idempotency.cache.max-size:10000}")
+    private int maxCached;
+
+    private final Map<String, CompletableFuture<Stored>> inFlight = new ConcurrentHashMap<>();
+
+    // Claim row of the keyed request running on this thread, for attachOrder
+    private final ThreadLocal<Long> currentClaim = new ThreadLocal<>();
+
+    private final LinkedHashMap<String, Stored> recent = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Stored> eldest) {
+            return size() > maxCached;
+        }
+    };
+
+    /**
+     * Runs the action at most once per (customer, key) and returns its response, or the
+     * stored response of the earlier run. Server errors and conflicts are not stored, so a
+     * retry after one of those runs the action again.
+     */
+    public ResponseEntity<?> execute(String key, Long customerId, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String scopedKey = customerId + ":" + key;
+        String requestHash = hash(request);
+
+        Stored cached = cached(scopedKey);
+        if (cached != null) {
+            return replay(cached, requestHash);
+        }
+
+        CompletableFuture<Stored> mine = new CompletableFuture<>();
+        CompletableFuture<Stored> running = inFlight.putIfAbsent(scopedKey, mine);
+        if (running != null) {
+            return awaitFirst(running, requestHash);
+        }
+        try {
+            Outcome outcome = claimAndRun(scopedKey, requestHash, action);
+            mine.complete(outcome.stored());
+            return outcome.response();
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(scopedKey, mine);
+        }
+    }
+
+    private Outcome claimAndRun(String scopedKey, String requestHash, Supplier<ResponseEntity<?>> action) {
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord existing = repository.findByIdempotencyKey(scopedKey).orElse(null);
+        if (existing != null) {
+            Outcome settled = settle(scopedKey, existing, requestHash, now);
+            if (settled != null) {
+                return settled;
+            }
+        }
+
+        IdempotencyRecord claim = new IdempotencyRecord();
+        claim.setIdempotencyKey(scopedKey);
+        claim.setRequestHash(requestHash);
+        claim.setStatus(IdempotencyRecord.Status.IN_PROGRESS);
+        claim.setCreatedAt(now);
+        claim.setExpiresAt(now.plusHours(ttlHours));
+        try {
+            claim = repository.saveAndFlush(claim);
+        } catch (DataIntegrityViolationException e) {
+            return uncached(stillRunning(), requestHash);
+        }
+
+        ResponseEntity<?> response;
+        currentClaim.set(claim.getId());
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            // Kept if an order did commit under it, so a retry gets that order instead of a second one
+            repository.deleteUnattached(claim.getId());
+            throw e;
+        } finally {
+            currentClaim.remove();
+        }
+        int status = response.getStatusCode().value();
+        if (!worthKeeping(status)) {
+            repository.deleteUnattached(claim.getId());
+            return uncached(response, requestHash);
+        }
+        Stored stored = new Stored(status, toJson(response.getBody()), requestHash, claim.getExpiresAt());
+        try {
+            repository.complete(claim.getId(), status, new String(stored.body(), StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            // The order (if any) is attached to the claim already; a retry recovers it from there
+            logger.log(Level.WARNING, "Failed to store the response for " + HEADER + " " + scopedKey, e);
+        }
+        remember(scopedKey, stored);
+        return new Outcome(stored, response);
+    }
+
+    // Answers from an existing claim, or clears it out of the way (returns null) so a new claim can be taken
+    private Outcome settle(String scopedKey, IdempotencyRecord existing, String requestHash, LocalDateTime now) {
+        boolean expired = !existing.getExpiresAt().isAfter(now);
+        if (!expired && existing.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+            Stored stored = new Stored(existing.getResponseStatus(),
+                    existing.getResponseBody().getBytes(StandardCharsets.UTF_8), existing.getRequestHash(),
+                    existing.getExpiresAt());
+            remember(scopedKey, stored);
+            return new Outcome(stored, replay(stored, requestHash));
+        }
+        if (!expired && existing.getOrderId() != null) {
+            // The order committed but its response was never stored
+            Stored stored = recoverOrder(existing);
+            if (stored != null) {
+                remember(scopedKey, stored);
+                return new Outcome(stored, replay(stored, requestHash));
+            }
+        }
+        if (!expired && existing.getCreatedAt().isAfter(now.minusSeconds(inProgressTimeoutSeconds))) {
+            // Claimed by another request that has not finished yet
+            return uncached(stillRunning(), requestHash);
+        }
+        if (expired) {
+            repository.delete(existing);
+        } else if (repository.deleteUnattached(existing.getId()) == 0) {
+            // Abandoned-looking, but its order committed in the meantime (or its order was deleted)
+            return uncached(stillRunning(), requestHash);
+        }
+        return null;
+    }
+
+    // Rebuilds the 201 the order endpoint returns, and stores it on the claim
+    private Stored recoverOrder(IdempotencyRecord record) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        byte[] body = tx.execute(status -> orderRepository.findById(record.getOrderId()).map(this::toJson).orElse(null));
+        if (body == null) {
+            return null;
+        }
+        int status = HttpStatus.CREATED.value();
+        repository.complete(record.getId(), status, new String(body, StandardCharsets.UTF_8));
+        logger.info("Recovered the response of order " + record.getOrderId() + " for a retried " + HEADER);
+        return new Stored(status, body, record.getRequestHash(), record.getExpiresAt());
+    }
+
+    /**
+     * Attaches an order being placed in the caller's transaction to the claim of the keyed
+     * request on this thread, if there is one. Throws (rolling the order back) if the claim
+     * is gone, i.e. a retry took the key over because this attempt looked abandoned.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void attachOrder(Long orderId) {
+        Long claimId = currentClaim.get();
+        if (claimId != null && repository.attachOrder(claimId, orderId) == 0) {
+            throw new IllegalStateException("This order's " + HEADER + " was taken over by a retry");
+        }
+    }
+
+    // The claim of the keyed request on this thread, for work handed to another thread
+    public Long currentClaim() {
+        return currentClaim.get();
+    }
+
+    public <T> T runAs(Long claimId, Supplier<T> work) {
+        if (claimId == null) {
+            return work.get();
+        }
+        Long previous = currentClaim.get();
+        currentClaim.set(claimId);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                currentClaim.set(previous);
+            } else {
+                currentClaim.remove();
+            }
+        }
+    }
+
+    // Successes and deterministic client errors; 409s and 5xx are transient and worth retrying
+    private static boolean worthKeeping(int status) {
+        return status < 500 && status != HttpStatus.CONFLICT.value();
+    }
+
+    private ResponseEntity<?> awaitFirst(CompletableFuture<Stored> running, String requestHash) {
+        try {
+            return replay(running.get(inProgressTimeoutSeconds, TimeUnit.SECONDS), requestHash);
+        } catch (TimeoutException | ExecutionException e) {
+            return stillRunning();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return stillRunning();
+        }
+    }
+
+    private ResponseEntity<?> replay(Stored stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(Map.of("message", HEADER + " was already used for a different request"));
+        }
+        return ResponseEntity.status(stored.status())
+                .header(REPLAYED_HEADER, "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(stored.body());
+    }
+
+    private static ResponseEntity<?> stillRunning() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("message", "A request with this " + HEADER + " is still being processed"));
+    }
+
+    // A response that waiters on this instance may share but that is not stored for later retries
+    private Outcome uncached(ResponseEntity<?> response, String requestHash) {
+        return new Outcome(new Stored(response.getStatusCode().value(), toJson(response.getBody()), requestHash, null),
+                response);
+    }
+
+    private synchronized Stored cached(String scopedKey) {
+        Stored stored = recent.get(scopedKey);
+        if (stored != null && stored.expiresAt().isBefore(LocalDateTime.now())) {
+            recent.remove(scopedKey);
+            return null;
+        }
+        return stored;
+    }
+
+    private synchronized void remember(String scopedKey, Stored stored) {
+        recent.put(scopedKey, stored);
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:600000}",
+            initialDelayString = "${idempotency.cleanup-interval-ms:600000}")
+    public void deleteExpired() {
+        int deleted = repository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.info("Deleted " + deleted + " expired idempotency keys");
+        }
+        synchronized (this) {
+            LocalDateTime now = LocalDateTime.now();
+            recent.values().removeIf(stored -> stored.expiresAt().isBefore(now));
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Failed to hash request", e);
+        }
+    }
+
+    private byte[] toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize response", e);
+        }
+    }
+
+    private record Stored(int status, byte[] body, String requestHash, LocalDateTime expiresAt) {
+    }
+
+    private record Outcome(Stored stored, ResponseEntity<?> response) {
+    }
+}
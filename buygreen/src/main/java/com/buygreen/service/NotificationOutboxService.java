@@ -0,0 +1,275 @@
+package com.buygreen.service;
+
+import com.buygreen.dto.OrderNotification;
+import com.buygreen.model.NotificationOutbox;
+import com.buygreen.repository.NotificationOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Transactional outbox for order emails. A notification is a row written in the same
+ * transaction as the order change it describes, so an email exists only for a change that
+ * committed, and it carries a JSON snapshot of the order instead of a reference to it.
+ * A single dispatcher thread claims due rows in batches, sends them, and marks them sent;
+ * a failed send is retried with exponential backoff until it runs out of attempts.
+ * Delivery is at-least-once: a row claimed by an instance that dies mid-send becomes due
+ * again when its lease runs out.
+ */
+@Service
+public class NotificationOutboxService {
+
+    private static final Logger logger = Logger.getLogger(NotificationOutboxService.class.getName());
+
+    private static final String SELECT_DUE =
+            "SELECT id, type, recipient, payload, attempts FROM notification_outbox "
+                    + "WHERE status = 'PENDING' AND next_attempt_at <= ? ORDER BY next_attempt_at, id LIMIT ?";
+
+    // Conditional claim: only one dispatcher (on any instance) wins a row for the lease period
+    private static final String CLAIM =
+            "UPDATE notification_outbox SET attempts = attempts + 1, next_attempt_at = ? "
+                    + "WHERE id = ? AND status = 'PENDING' AND attempts = ?";
+
+    private static final String MARK_SENT =
+            "UPDATE notification_outbox SET status = 'SENT', sent_at = ?, last_error = NULL WHERE id = ?";
+
+    private static final String MARK_FAILED =
+            "UPDATE notification_outbox SET status = ?, next_attempt_at = ?, last_error = ? WHERE id = ?";
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private NotificationOutboxRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${notification.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${notification.outbox.poll-interval-ms:5000}")
+    private long pollIntervalMs;
+
+    @Value("${notification.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${notification.outbox.base-backoff-ms:30000}")
+    private long baseBackoffMs;
+
+    @Value("${notification.outbox.max-backoff-ms:3600000}")
+    private long maxBackoffMs;
+
+    @Value("${notification.outbox.lease-ms:300000}")
+    private long leaseMs;
+
+    @Value("${notification.outbox.retention-days:7}")
+    private long retentionDays;
+
+    private ScheduledExecutorService dispatcher;
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        dispatcher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "notification-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dispatcher.scheduleWithFixedDelay(this::dispatchSafely, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        dispatcher.shutdown();
+        dispatcher.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queues an order email in the caller's transaction; it is sent only if that commits.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(NotificationOutbox.Type type, String recipient, OrderNotification notification) {
+        LocalDateTime now = LocalDateTime.now();
+        NotificationOutbox row = new NotificationOutbox();
+        row.setType(type);
+        row.setOrderId(notification.orderId());
+        row.setRecipient(recipient);
+        row.setPayload(toJson(notification));
+        row.setStatus(NotificationOutbox.Status.PENDING);
+        row.setNextAttemptAt(now);
+        row.setCreatedAt(now);
+        repository.save(row);
+        wakeUpAfterCommit();
+    }
+
+    // Send right after the commit instead of waiting for the next poll
+    private void wakeUpAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (wakeUpPending.compareAndSet(false, true)) {
+                    dispatcher.execute(() -> {
+                        wakeUpPending.set(false);
+                        dispatchSafely();
+                    });
+                }
+            }
+        });
+    }
+
+    private void dispatchSafely() {
+        try {
+            while (dispatchBatch() == batchSize) {
+                // A full batch means more rows are probably due
+            }
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Notification outbox dispatch failed", e);
+        }
+    }
+
+    // Claims up to batchSize due rows, sends them, and records the outcomes in two batched updates
+    int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Due> due = jdbcTemplate.query(SELECT_DUE,
+                (rs, row) -> new Due(rs.getLong(1), NotificationOutbox.Type.valueOf(rs.getString(2)),
+                        rs.getString(3), rs.getString(4), rs.getInt(5)),
+                Timestamp.valueOf(now), batchSize);
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp leaseUntil = Timestamp.valueOf(now.plus(Duration.ofMillis(leaseMs)));
+        List<Object[]> claims = new ArrayList<>(due.size());
+        for (Due row : due) {
+            claims.add(new Object[]{leaseUntil, row.id(), row.attempts()});
+        }
+        int[] claimed = jdbcTemplate.batchUpdate(CLAIM, claims);
+
+        List<Object[]> sentRows = new ArrayList<>();
+        List<Object[]> failedRows = new ArrayList<>();
+        for (int i = 0; i < due.size(); i++) {
+            if (claimed[i] == 0) {
+                continue;
+            }
+            Due row = due.get(i);
+            try {
+                send(row);
+                sentRows.add(new Object[]{Timestamp.valueOf(LocalDateTime.now()), row.id()});
+                sent.incrementAndGet();
+            } catch (Exception e) {
+                failedRows.add(failure(row, e));
+            }
+        }
+        if (!sentRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(MARK_SENT, sentRows);
+        }
+        if (!failedRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(MARK_FAILED, failedRows);
+        }
+        return due.size();
+    }
+
+    private void send(Due row) throws Exception {
+        OrderNotification notification = objectMapper.readValue(row.payload(), OrderNotification.class);
+        switch (row.type()) {
+            case ORDER_CONFIRMATION -> emailService.sendOrderConfirmationEmail(row.recipient(), notification);
+            case ADMIN_NEW_ORDER -> emailService.sendNewOrderNotificationToAdmin(row.recipient(), notification);
+            case ORDER_STATUS_UPDATE -> emailService.sendOrderStatusUpdateEmail(row.recipient(), notification);
+        }
+    }
+
+    private Object[] failure(Due row, Exception e) {
+        int attempts = row.attempts() + 1;
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        if (attempts >= maxAttempts) {
+            failed.incrementAndGet();
+            logger.severe("Giving up on " + row.type() + " notification " + row.id() + " after " + attempts
+                    + " attempts: " + error);
+            return new Object[]{NotificationOutbox.Status.FAILED.name(), Timestamp.valueOf(LocalDateTime.now()),
+                    error, row.id()};
+        }
+        retried.incrementAndGet();
+        logger.warning(row.type() + " notification " + row.id() + " failed (attempt " + attempts + "), will retry: "
+                + error);
+        return new Object[]{NotificationOutbox.Status.PENDING.name(),
+                Timestamp.valueOf(LocalDateTime.now().plus(Duration.ofMillis(backoffMs(attempts)))), error, row.id()};
+    }
+
+    // Exponential: base, 2x base, 4x base ... capped
+    private long backoffMs(int attempts) {
+        long factor = 1L << Math.min(attempts - 1, 20);
+        return Math.min(maxBackoffMs, baseBackoffMs * factor);
+    }
+
+    @Scheduled(fixedDelayString = "${notification.outbox.cleanup-interval-ms:3600000}",
+            initialDelayString = "${notification.outbox.cleanup-interval-ms:3600000}")
+    public void deleteSent() {
+        int deleted = repository.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (deleted > 0) {
+            logger.info("Deleted " + deleted + " sent notifications from the outbox");
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", repository.countByStatus(NotificationOutbox.Status.PENDING));
+        stats.put("failed", repository.countByStatus(NotificationOutbox.Status.FAILED));
+        stats.put("oldestPendingCreatedAt", repository.findOldestPendingCreatedAt());
+        stats.put("sentSinceStart", sent.get());
+        stats.put("retriedSinceStart", retried.get());
+        stats.put("gaveUpSinceStart", failed.get());
+        return stats;
+    }
+
+    private String toJson(OrderNotification notification) {
+        try {
+            return objectMapper.writeValueAsString(notification);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize notification", e);
+        }
+    }
+
+    private record Due(long id, NotificationOutbox.Type type, String recipient, String payload, int attempts) {
+    }
+}
@@ -0,0 +1,183 @@
+package com.buygreen.service;
+
+import com.buygreen.dto.OrderRequest;
+import com.buygreen.dto.OrderTicket;
+import com.buygreen.model.Order;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Asynchronous order intake. Accepted orders go into a bounded in-process queue and the
+ * request returns straight away with a ticket; a fixed pool of workers takes orders off
+ * the queue in micro-batches and places them one by one, each in its own transaction,
+ * so one bad order never fails its neighbours. The queue bound is the backpressure: when
+ * it is full, submit refuses instead of piling up servlet threads and DB connections.
+ * Tickets live in memory only, like the queue itself.
+ */
+@Service
+public class OrderIntakeService {
+
+    private static final Logger logger = Logger.getLogger(OrderIntakeService.class.getName());
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Value("${order.intake.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${order.intake.workers:4}")
+    private int workers;
+
+    @Value("${order.intake.batch-size:20}")
+    private int batchSize;
+
+    @Value("${order.intake.ticket-ttl-minutes:60}")
+    private long ticketTtlMinutes;
+
+    private BlockingQueue<Pending> queue;
+    private ExecutorService pool;
+    private volatile boolean running;
+
+    private final Map<String, OrderTicket> tickets = new ConcurrentHashMap<>();
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(workers, task -> {
+            Thread thread = new Thread(task, "order-intake-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            pool.execute(this::work);
+        }
+    }
+
+    // Stop taking orders, but let the workers place everything already accepted
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        pool.shutdown();
+        if (!pool.awaitTermination(30, TimeUnit.SECONDS)) {
+            logger.warning(queue.size() + " queued orders were not placed before shutdown");
+        }
+    }
+
+    /**
+     * Queues the order and returns its ticket, or null if the queue is full.
+     */
+    public OrderTicket submit(OrderRequest request) {
+        OrderTicket ticket = OrderTicket.queued(UUID.randomUUID().toString(), request.getCustomerId());
+        tickets.put(ticket.getId(), ticket);
+        Pending pending = new Pending(ticket.getId(), request, idempotencyService.currentClaim());
+        if (!running || !queue.offer(pending)) {
+            tickets.remove(ticket.getId());
+            rejected.incrementAndGet();
+            return null;
+        }
+        accepted.incrementAndGet();
+        return ticket;
+    }
+
+    public OrderTicket getTicket(String id) {
+        return tickets.get(id);
+    }
+
+    private void work() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                for (Pending pending : batch) {
+                    process(pending);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(Pending pending) {
+        tickets.computeIfPresent(pending.ticketId(), (id, t) -> t.with(OrderTicket.Status.PROCESSING, null, null));
+        try {
+            // A keyed order is attached to the key's claim just as it would be when placed inline
+            Order order = idempotencyService.runAs(pending.claimId(), () -> orderService.placeOrder(pending.request()));
+            finish(pending.ticketId(), OrderTicket.Status.COMPLETED, order.getId(), null);
+        } catch (IllegalArgumentException e) {
+            finish(pending.ticketId(), OrderTicket.Status.FAILED, null, e.getMessage());
+        } catch (ConcurrencyFailureException e) {
+            finish(pending.ticketId(), OrderTicket.Status.FAILED, null,
+                    "Order could not be placed due to high demand, please try again");
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Queued order " + pending.ticketId() + " failed", e);
+            finish(pending.ticketId(), OrderTicket.Status.FAILED, null, "Failed to place order: " + e.getMessage());
+        }
+    }
+
+    private void finish(String ticketId, OrderTicket.Status status, Long orderId, String message) {
+        (status == OrderTicket.Status.COMPLETED ? completed : failed).incrementAndGet();
+        tickets.computeIfPresent(ticketId, (id, t) -> t.with(status, orderId, message));
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void expireTickets() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ticketTtlMinutes);
+        tickets.values().removeIf(t -> t.isFinished() && t.getUpdatedAt().isBefore(cutoff));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", queue.size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("workers", workers);
+        stats.put("accepted", accepted.get());
+        stats.put("rejected", rejected.get());
+        stats.put("completed", completed.get());
+        stats.put("failed", failed.get());
+        stats.put("trackedTickets", tickets.size());
+        return stats;
+    }
+
+    private record Pending(String ticketId, OrderRequest request, Long claimId) {
+    }
+}
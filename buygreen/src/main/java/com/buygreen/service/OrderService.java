@@ -1,33 +1,43 @@
 package com.buygreen.service;
 
 
+import com.buygreen.dto.CursorPage;
+import com.buygreen.dto.OrderNotification;
 import com.buygreen.dto.OrderRequest;
 import com.buygreen.model.Coupon;
+import com.buygreen.model.NotificationOutbox;
 import com.buygreen.model.Order;
 import com.buygreen.model.OrderItem;
-import com.buygreen.model.Product;
-import com.buygreen.repository.CartRepository;
 import com.buygreen.repository.OrderRepository;
-import com.buygreen.repository.ProductRepository;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
 
+    private static final Logger logger = Logger.getLogger(OrderService.class.getName());
+
     @Autowired
     private OrderRepository orderRepository;
 
     @Autowired
-    private CartRepository cartRepository;
+    private CartStore cartStore;
     
     @Autowired
     private EmailService emailService;
@@ -39,10 +49,30 @@ public class OrderService {
     private CouponService couponService;
     
     @Autowired
-    private ProductRepository productRepository;
+    private ProductStockUpdater stockUpdater;
 
-    @Transactional
+    @Autowired
+    private TransactionRetry transactionRetry;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private NotificationOutboxService outboxService;
+
+    @Autowired
+    private StockReservationService reservationService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    // A lost write conflict (coupon usage count, row locks) re-runs the whole order in a fresh
+    // transaction; its outbox rows are rolled back with it, so emails go out once
     public Order placeOrder(OrderRequest orderRequest) {
+        return transactionRetry.execute("placeOrder", () -> createOrder(orderRequest));
+    }
+
+    private Order createOrder(OrderRequest orderRequest) {
         Order order = new Order();
         order.setCustomerId(orderRequest.getCustomerId());
         
@@ -58,6 +88,8 @@ public class OrderService {
                 
                 order.setCouponCode(coupon.getCode());
                 order.setDiscountAmount(discount);
+            } catch (ConcurrencyFailureException e) {
+                throw e;
             } catch (Exception e) {
                 // If coupon validation/application fails, reject the order
                 throw new IllegalArgumentException("Invalid coupon logic or coupon not found/expired: " + e.getMessage());
@@ -90,12 +122,50 @@ public class OrderService {
         }
 
         List<OrderRequest.OrderItemRequest> requestedItems = orderRequest.getItems();
-        if (requestedItems == null || requestedItems.isEmpty()) {
-            throw new IllegalArgumentException("Order must contain at least one item");
-        }
+        validateItems(requestedItems);
+
+        // Units per product (lines for the same product merged), in ascending id order
+        SortedMap<Long, Integer> unitsSold = new TreeMap<>();
 
-        // Convert cart items → order items with validation AND stock update
+        // Convert cart items → order items
         List<OrderItem> orderItems = requestedItems.stream().map(item -> {
+            unitsSold.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+
+            // Create OrderItem
+            OrderItem orderItem = new OrderItem();
+            orderItem.setProductId(item.getProductId());
+            orderItem.setProductName(item.getProductName().trim());
+            orderItem.setPrice(item.getPrice());
+            orderItem.setQuantity(item.getQuantity());
+            orderItem.setOrder(order);
+            return orderItem;
+        }).collect(Collectors.toList());
+
+        // Conditional decrements, one batch; a shortfall on any line rolls back the whole order.
+        // The new stock levels are published to the catalog only once the order commits.
+        // Units the customer reserved at checkout count towards their own order.
+        Map<Long, Integer> held = reservationService.convert(orderRequest.getCustomerId(), unitsSold);
+        Map<Long, ProductStockUpdater.StockLevel> stockUpdates = stockUpdater.decrement(unitsSold, held);
+
+        order.setItems(orderItems);
+        Order savedOrder = orderRepository.save(order);
+        // With an Idempotency-Key, the key records this order in the same commit
+        idempotencyService.attachOrder(savedOrder.getId());
+
+        // Clear cart after successful order (rows deleted in this transaction, cached cart on commit)
+        cartStore.clear(orderRequest.getCustomerId());
+
+        queueOrderEmails(orderRequest.getCustomerId(), savedOrder);
+        publishAfterCommit(savedOrder.getId(), stockUpdates, unitsSold);
+        return savedOrder;
+    }
+
+    // Request-only checks (no database), also run before an order is queued for async intake
+    public static void validateItems(List<OrderRequest.OrderItemRequest> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("Order must contain at least one item");
+        }
+        for (OrderRequest.OrderItemRequest item : items) {
             // Validate mandatory item fields
             if (item.getProductId() == null) {
                 throw new IllegalArgumentException("Product ID is required for all items");
@@ -109,61 +179,43 @@ public class OrderService {
             if (item.getQuantity() == null || item.getQuantity() <= 0) {
                 throw new IllegalArgumentException("Product quantity must be greater than zero");
             }
-            
-            // 2. CRITICAL FIX: Check and reduce stock for each item
-            Product product = productRepository.findById(item.getProductId())
-                    .orElseThrow(() -> new IllegalArgumentException("Product not found with ID: " + item.getProductId()));
-            int orderedQuantity = item.getQuantity();
-            if (product.getStockQuantity() < orderedQuantity) {
-                throw new IllegalArgumentException("Not enough stock for product " + product.getName() + 
-                                                   ". Only " + product.getStockQuantity() + " available.");
-            }
-            // Reduce stock
-            product.setStockQuantity(product.getStockQuantity() - orderedQuantity);
-            productRepository.save(product); // Save updated product stock
-            
-            // 3. Create OrderItem
-            OrderItem orderItem = new OrderItem();
-            orderItem.setProductId(item.getProductId());
-            orderItem.setProductName(item.getProductName().trim());
-            orderItem.setPrice(item.getPrice());
-            orderItem.setQuantity(item.getQuantity());
-            orderItem.setOrder(order);
-            return orderItem;
-        }).collect(Collectors.toList());
-
-        order.setItems(orderItems);
-        Order savedOrder = orderRepository.save(order);
+        }
+    }
 
-        // Clear cart after successful order
-        cartRepository.deleteByCustomerId(orderRequest.getCustomerId());
-
-        // Send order confirmation email to customer asynchronously (non-blocking)
-        try {
-            var customer = customerService.getCustomerById(orderRequest.getCustomerId());
-            if (customer != null && customer.getEmail() != null) {
-                // Email is sent asynchronously, so this won't block order creation
-                emailService.sendOrderConfirmationEmail(
-                    customer.getEmail(),
-                    savedOrder,
-                    customer.getName()
-                );
-                
-                // Send admin notification email asynchronously (non-blocking)
-                emailService.sendNewOrderNotificationToAdmin(
-                    savedOrder,
-                    customer.getName(),
-                    customer.getEmail()
-                );
-            }
-        } catch (Exception e) {
-            // Log error but don't fail the order placement
-            System.err.println("Failed to send order confirmation email: " + e.getMessage());
-            e.printStackTrace();
+    // Order emails go through the outbox in the order's own transaction, so a rolled-back
+    // order never sends one; the dispatcher delivers them after commit
+    private void queueOrderEmails(Long customerId, Order savedOrder) {
+        var customer = customerService.getCustomerById(customerId);
+        if (customer == null || customer.getEmail() == null || customer.getEmail().trim().isEmpty()) {
+            return;
         }
+        OrderNotification notification = OrderNotification.of(savedOrder, customer.getName(), customer.getEmail(), true);
+        outboxService.enqueue(NotificationOutbox.Type.ORDER_CONFIRMATION, customer.getEmail(), notification);
+        String adminEmail = emailService.getAdminEmail();
+        if (adminEmail != null) {
+            outboxService.enqueue(NotificationOutbox.Type.ADMIN_NEW_ORDER, adminEmail, notification);
+        }
+    }
 
-        return savedOrder;
+    private void publishAfterCommit(Long orderId, Map<Long, ProductStockUpdater.StockLevel> stockUpdates,
+                                    Map<Long, Integer> unitsSold) {
+        Runnable publish = () -> {
+            stockUpdates.forEach((id, level) -> productService.onStockChanged(id, level));
+            unitsSold.forEach(productService::onProductSold);
+            productService.onOrderPlaced(orderId, unitsSold.keySet());
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish.run();
+            }
+        });
     }
+
     public List<Order> getOrdersByCustomer(Long customerId) {
         return orderRepository.findByCustomerId(customerId);
     }
@@ -173,6 +225,21 @@ public class OrderService {
         return orderRepository.findAllByOrderByOrderDateDesc(pageable);
     }
 
+    private final CachedCount orderCount = new CachedCount(() -> orderRepository.count(), 60_000);
+
+    public CursorPage<Order> scrollOrders(String cursor, int size, boolean includeTotal) {
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Order> rows;
+        if (cursor == null) {
+            rows = orderRepository.findAllByOrderByOrderDateDescIdDesc(limit);
+        } else {
+            CursorPage.Cursor position = CursorPage.Cursor.decode(cursor);
+            rows = orderRepository.findPageBefore(LocalDateTime.parse(position.sortKey()), position.id(), limit);
+        }
+        return CursorPage.of(rows, size, o -> new CursorPage.Cursor(String.valueOf(o.getOrderDate()), o.getId()),
+                includeTotal ? orderCount.get() : null);
+    }
+
     public boolean hasCustomerPurchasedProduct(Long customerId, Long productId) {
         return orderRepository.hasCustomerPurchasedProduct(customerId, productId);
     }
@@ -191,35 +258,16 @@ public class OrderService {
         
         Order updatedOrder = orderRepository.save(order);
         
-        // Send email notification if status changed (asynchronously, non-blocking)
+        // Queued in this transaction, sent by the outbox dispatcher once the status change commits
         if (oldStatus != newStatus) {
-            try {
-                System.out.println("Order status changed from " + oldStatus + " to " + newStatus + " for order #" + orderId);
-                var customer = customerService.getCustomerById(order.getCustomerId());
-                if (customer != null) {
-                    System.out.println("Customer found: " + customer.getName() + ", Email: " + customer.getEmail());
-                    if (customer.getEmail() != null && !customer.getEmail().trim().isEmpty()) {
-                        // Email is sent asynchronously, so this won't block status update
-                        System.out.println("Attempting to send email to: " + customer.getEmail());
-                        emailService.sendOrderStatusUpdateEmail(
-                            customer.getEmail(),
-                            updatedOrder,
-                            customer.getName()
-                        );
-                        System.out.println("Email send request submitted (async) for order #" + orderId);
-                    } else {
-                        System.err.println("Customer email is null or empty for customer ID: " + order.getCustomerId());
-                    }
-                } else {
-                    System.err.println("Customer not found for customer ID: " + order.getCustomerId());
-                }
-            } catch (Exception e) {
-                // Log error but don't fail the status update
-                System.err.println("Failed to send order status update email: " + e.getMessage());
-                e.printStackTrace();
+            var customer = customerService.getCustomerById(order.getCustomerId());
+            if (customer != null && customer.getEmail() != null && !customer.getEmail().trim().isEmpty()) {
+                outboxService.enqueue(NotificationOutbox.Type.ORDER_STATUS_UPDATE, customer.getEmail(),
+                        OrderNotification.of(updatedOrder, customer.getName(), customer.getEmail(), false));
+            } else {
+                logger.warning("No email address for customer ID: " + order.getCustomerId()
+                        + ", skipping status update email for order #" + orderId);
             }
-        } else {
-            System.out.println("Order status unchanged for order #" + orderId + " (old: " + oldStatus + ", new: " + newStatus + ")");
         }
         
         return updatedOrder;
@@ -0,0 +1,216 @@
+package com.buygreen.service;
+
+import com.buygreen.model.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-process cache in front of ProductRepository.
+ * Products are kept in an LRU map with a TTL; listing pages only remember the
+ * product ids they contained, so a stock change on one product never goes stale
+ * inside a cached page.
+ */
+@Component
+public class ProductCache {
+
+    @Value("${product.cache.max-size:2000}")
+    private int maxSize;
+
+    @Value("${product.cache.max-pages:200}")
+    private int maxPages;
+
+    @Value("${product.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    // Access-ordered so the eldest entry is always the least recently used one
+    private final LinkedHashMap<Long, Entry<Product>> products = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry<Product>> eldest) {
+            if (size() > maxSize) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final LinkedHashMap<String, Entry<PageIds>> pages = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry<PageIds>> eldest) {
+            if (size() > maxPages) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    public synchronized Product get(Long id) {
+        Product product = lookup(id);
+        if (product != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return product;
+    }
+
+    // One lock acquisition for the whole lookup; ids not cached are simply absent from the result
+    public synchronized Map<Long, Product> getAll(Collection<Long> ids) {
+        Map<Long, Product> found = new HashMap<>();
+        for (Long id : ids) {
+            Product product = lookup(id);
+            if (product != null) {
+                found.put(id, product);
+                hits.incrementAndGet();
+            } else {
+                misses.incrementAndGet();
+            }
+        }
+        return found;
+    }
+
+    public synchronized void put(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        products.put(product.getId(), new Entry<>(product, expiryFromNow()));
+    }
+
+    /**
+     * Returns the cached page, or null if the page or any product on it is no longer cached.
+     */
+    public synchronized Page<Product> getPage(Pageable pageable) {
+        String key = pageKey(pageable);
+        Entry<PageIds> entry = key != null ? pages.get(key) : null;
+        if (entry == null || isExpired(entry, () -> pages.remove(key))) {
+            misses.incrementAndGet();
+            return null;
+        }
+        List<Product> content = new ArrayList<>(entry.value().ids().size());
+        for (Long id : entry.value().ids()) {
+            Product product = lookup(id);
+            if (product == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            content.add(product);
+        }
+        hits.incrementAndGet();
+        return new PageImpl<>(content, pageable, entry.value().total());
+    }
+
+    public synchronized void putPage(Pageable pageable, Page<Product> page) {
+        String key = pageKey(pageable);
+        if (key == null) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(page.getNumberOfElements());
+        for (Product product : page.getContent()) {
+            put(product);
+            ids.add(product.getId());
+        }
+        pages.put(key, new Entry<>(new PageIds(ids, page.getTotalElements()), expiryFromNow()));
+    }
+
+    // Takes the row's own updated_at, so the cached copy carries the same validators as the database row
+    public synchronized void updateStock(Long id, ProductStockUpdater.StockLevel level) {
+        Entry<Product> entry = products.get(id);
+        // Stock events can arrive out of order; never move a cached copy back to an older version
+        // Cached instances may already be in a caller's hands, so the entry gets an updated copy
+        if (entry != null && (entry.value().getVersion() == null || entry.value().getVersion() < level.version())) {
+            Product updated = entry.value().copy();
+            updated.setStockQuantity(level.stockQuantity());
+            updated.setVersion(level.version());
+            updated.setUpdatedAt(level.updatedAt());
+            products.put(id, new Entry<>(updated, entry.expiresAt()));
+        }
+    }
+
+    public synchronized void invalidate(Long id) {
+        products.remove(id);
+    }
+
+    // Listing pages depend on catalog membership and ordering, so any catalog write drops them
+    public synchronized void invalidatePages() {
+        pages.clear();
+    }
+
+    public synchronized void invalidateAll() {
+        products.clear();
+        pages.clear();
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+        int productCount;
+        int pageCount;
+        synchronized (this) {
+            productCount = products.size();
+            pageCount = pages.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("products", productCount);
+        stats.put("pages", pageCount);
+        stats.put("maxSize", maxSize);
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) hitCount / total);
+        return stats;
+    }
+
+    private Product lookup(Long id) {
+        Entry<Product> entry = products.get(id);
+        if (entry == null || isExpired(entry, () -> products.remove(id))) {
+            return null;
+        }
+        return entry.value();
+    }
+
+    private boolean isExpired(Entry<?> entry, Runnable remover) {
+        if (System.currentTimeMillis() < entry.expiresAt()) {
+            return false;
+        }
+        remover.run();
+        expirations.incrementAndGet();
+        return true;
+    }
+
+    private long expiryFromNow() {
+        return System.currentTimeMillis() + ttlSeconds * 1000;
+    }
+
+    private String pageKey(Pageable pageable) {
+        if (pageable == null || pageable.isUnpaged()) {
+            return null;
+        }
+        return pageable.getPageNumber() + ":" + pageable.getPageSize() + ":" + pageable.getSort();
+    }
+
+    private record Entry<T>(T value, long expiresAt) {
+    }
+
+    private record PageIds(List<Long> ids, long total) {
+    }
+}
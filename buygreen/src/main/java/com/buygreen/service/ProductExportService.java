@@ -0,0 +1,206 @@
+package com.buygreen.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Streams the whole catalog (products with their image URLs) as NDJSON or CSV.
+ * Rows come from one forward-only, read-only cursor over products LEFT JOIN images
+ * and are written out as soon as a product's last image row has been seen, so
+ * memory use does not depend on the size of the catalog.
+ */
+@Service
+public class ProductExportService {
+
+    private static final Logger logger = Logger.getLogger(ProductExportService.class.getName());
+
+    private static final String EXPORT_QUERY =
+            "SELECT p.id, p.name, p.description, p.price, p.stock_quantity, p.category, i.image_url "
+                    + "FROM products p LEFT JOIN product_images i ON i.product_id = p.id "
+                    + "ORDER BY p.id, i.position, i.id";
+
+    // Same column layout the bulk import reads, so an export can be re-imported as is
+    private static final String CSV_HEADER = "id,name,description,price,stockQuantity,category,imageUrls";
+
+    private static final int FLUSH_EVERY = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${product.export.fetch-size:1000}")
+    private int fetchSize;
+
+    public void export(OutputStream out, ProductImportService.Format format) throws IOException {
+        long start = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        ExportSink sink = format == ProductImportService.Format.CSV
+                ? new CsvSink(writer)
+                : new NdjsonSink(objectMapper.getFactory().createGenerator(writer));
+
+        long exported;
+        try {
+            exported = jdbcTemplate.execute(this::prepareCursor, statement -> {
+                try (ResultSet rs = statement.executeQuery()) {
+                    return stream(rs, sink);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Client went away mid-download
+            throw e.getCause();
+        }
+        sink.flush();
+        logger.info("Exported " + exported + " products as " + format + " in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    // Forward-only cursor with a bounded fetch size; with useCursorFetch MySQL serves it in fetchSize chunks
+    private PreparedStatement prepareCursor(Connection connection) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(EXPORT_QUERY,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(fetchSize);
+        return statement;
+    }
+
+    private long stream(ResultSet rs, ExportSink sink) throws SQLException {
+        long count = 0;
+        Row current = null;
+        try {
+            while (rs.next()) {
+                long id = rs.getLong(1);
+                if (current == null || current.id != id) {
+                    if (current != null) {
+                        sink.write(current);
+                        if (++count % FLUSH_EVERY == 0) {
+                            sink.flush();
+                        }
+                    }
+                    current = new Row(id, rs.getString(2), rs.getString(3), rs.getBigDecimal(4),
+                            rs.getInt(5), rs.getString(6), new ArrayList<>(2));
+                }
+                String imageUrl = rs.getString(7);
+                if (imageUrl != null) {
+                    current.imageUrls.add(imageUrl);
+                }
+            }
+            if (current != null) {
+                sink.write(current);
+                count++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+
+    private record Row(long id, String name, String description, BigDecimal price, int stockQuantity,
+                       String category, List<String> imageUrls) {
+    }
+
+    private interface ExportSink {
+        void write(Row row) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    private static final class NdjsonSink implements ExportSink {
+        private final JsonGenerator json;
+
+        NdjsonSink(JsonGenerator json) {
+            this.json = json;
+            json.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(Row row) throws IOException {
+            json.writeStartObject();
+            json.writeNumberField("id", row.id);
+            json.writeStringField("name", row.name);
+            json.writeStringField("description", row.description);
+            if (row.price != null) {
+                json.writeNumberField("price", row.price);
+            } else {
+                json.writeNullField("price");
+            }
+            json.writeNumberField("stockQuantity", row.stockQuantity);
+            json.writeStringField("category", row.category);
+            json.writeArrayFieldStart("imageUrls");
+            for (String url : row.imageUrls) {
+                json.writeString(url);
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            json.flush();
+        }
+    }
+
+    private static final class CsvSink implements ExportSink {
+        private final Writer writer;
+
+        CsvSink(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        @Override
+        public void write(Row row) throws IOException {
+            writer.write(Long.toString(row.id));
+            writer.write(',');
+            writer.write(escape(row.name));
+            writer.write(',');
+            writer.write(escape(row.description));
+            writer.write(',');
+            writer.write(row.price != null ? row.price.toPlainString() : "");
+            writer.write(',');
+            writer.write(Integer.toString(row.stockQuantity));
+            writer.write(',');
+            writer.write(escape(row.category));
+            writer.write(',');
+            writer.write(escape(String.join("|", row.imageUrls)));
+            writer.write('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.buygreen.service;
+
+import com.buygreen.model.Product;
+import com.buygreen.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * Bitmap indexes for catalog facets (category, price band, stock state).
+ * Products are mapped to dense ordinals so each facet value is a BitSet over
+ * the catalog; filters are AND/OR of bitmaps and facet counts are cardinalities
+ * of their intersections, all without touching the database.
+ */
+@Component
+public class ProductFacetIndex {
+
+    private static final Logger logger = Logger.getLogger(ProductFacetIndex.class.getName());
+
+    // Matches the low stock threshold used by InventoryService
+    private static final int LOW_STOCK_THRESHOLD = 10;
+
+    public enum PriceBand {
+        UNDER_100("under-100", null, new BigDecimal("100")),
+        FROM_100_TO_500("100-500", new BigDecimal("100"), new BigDecimal("500")),
+        FROM_500_TO_1000("500-1000", new BigDecimal("500"), new BigDecimal("1000")),
+        FROM_1000_TO_5000("1000-5000", new BigDecimal("1000"), new BigDecimal("5000")),
+        OVER_5000("5000-plus", new BigDecimal("5000"), null);
+
+        private final String label;
+        private final BigDecimal min;
+        private final BigDecimal max;
+
+        PriceBand(String label, BigDecimal min, BigDecimal max) {
+            this.label = label;
+            this.min = min;
+            this.max = max;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        static PriceBand of(BigDecimal price) {
+            BigDecimal value = price != null ? price : BigDecimal.ZERO;
+            for (PriceBand band : values()) {
+                if ((band.min == null || value.compareTo(band.min) >= 0)
+                        && (band.max == null || value.compareTo(band.max) < 0)) {
+                    return band;
+                }
+            }
+            return OVER_5000;
+        }
+
+        static PriceBand fromLabel(String label) {
+            for (PriceBand band : values()) {
+                if (band.label.equalsIgnoreCase(label)) {
+                    return band;
+                }
+            }
+            throw new IllegalArgumentException("Unknown price band: " + label);
+        }
+    }
+
+    public enum StockState {
+        IN_STOCK("in-stock"),
+        LOW_STOCK("low-stock"),
+        OUT_OF_STOCK("out-of-stock");
+
+        private final String label;
+
+        StockState(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        static StockState of(int stockQuantity) {
+            if (stockQuantity <= 0) {
+                return OUT_OF_STOCK;
+            }
+            return stockQuantity <= LOW_STOCK_THRESHOLD ? LOW_STOCK : IN_STOCK;
+        }
+
+        static StockState fromLabel(String label) {
+            for (StockState state : values()) {
+                if (state.label.equalsIgnoreCase(label)) {
+                    return state;
+                }
+            }
+            throw new IllegalArgumentException("Unknown stock state: " + label);
+        }
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private long[] productIds = new long[1024];
+    private int nextOrdinal;
+    private final BitSet live = new BitSet();
+
+    // Facet value -> products having it; categories keyed case-insensitively
+    private final Map<String, BitSet> byCategory = new TreeMap<>();
+    private final Map<String, String> categoryNames = new HashMap<>();
+    private final Map<PriceBand, BitSet> byPrice = new LinkedHashMap<>();
+    private final Map<StockState, BitSet> byStock = new LinkedHashMap<>();
+    private final Map<Long, Facets> current = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<Object[]> rows = productRepository.findFacetFields();
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            productIds = new long[Math.max(1024, rows.size())];
+            nextOrdinal = 0;
+            live.clear();
+            byCategory.clear();
+            categoryNames.clear();
+            byPrice.clear();
+            byStock.clear();
+            current.clear();
+            for (Object[] row : rows) {
+                add((Long) row[0], (String) row[1], (BigDecimal) row[2], ((Number) row[3]).intValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Product facet index built with " + rows.size() + " products in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            clearFacets(product.getId());
+            add(product.getId(), product.getCategory(), product.getPrice(), product.getStockQuantity());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updateStock(Long productId, int stockQuantity) {
+        lock.writeLock().lock();
+        try {
+            Facets facets = current.get(productId);
+            StockState state = StockState.of(stockQuantity);
+            if (facets == null || facets.stock() == state) {
+                return;
+            }
+            int ordinal = ordinals.get(productId);
+            byStock.get(facets.stock()).clear(ordinal);
+            byStock.computeIfAbsent(state, s -> new BitSet()).set(ordinal);
+            current.put(productId, new Facets(facets.category(), facets.price(), state));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            clearFacets(productId);
+            Integer ordinal = ordinals.get(productId);
+            if (ordinal != null) {
+                live.clear(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Filters by the given facet values (OR within a facet, AND across facets) and returns
+     * the ids in [offset, offset + limit) plus the per-value counts for every facet.
+     * Counts for a facet ignore that facet's own selection, so the UI can offer alternatives.
+     */
+    public FacetResult filter(List<String> categories, List<String> priceBands, List<String> stockStates,
+                              long offset, int limit) {
+        List<PriceBand> bands = priceBands == null ? List.of()
+                : priceBands.stream().map(PriceBand::fromLabel).toList();
+        List<StockState> states = stockStates == null ? List.of()
+                : stockStates.stream().map(StockState::fromLabel).toList();
+
+        lock.readLock().lock();
+        try {
+            BitSet categoryMask = union(categories == null ? List.of()
+                    : categories.stream().map(ProductFacetIndex::categoryKey).filter(Objects::nonNull).map(byCategory::get).toList());
+            BitSet priceMask = union(bands.stream().map(byPrice::get).toList());
+            BitSet stockMask = union(states.stream().map(byStock::get).toList());
+
+            BitSet matches = intersect(categoryMask, priceMask, stockMask);
+
+            List<Long> ids = new ArrayList<>();
+            long skipped = 0;
+            for (int i = matches.nextSetBit(0); i >= 0 && ids.size() < limit; i = matches.nextSetBit(i + 1)) {
+                if (skipped++ >= offset) {
+                    ids.add(productIds[i]);
+                }
+            }
+
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            BitSet withoutCategory = intersect(null, priceMask, stockMask);
+            Map<String, Integer> categoryCounts = new LinkedHashMap<>();
+            byCategory.forEach((key, bits) -> categoryCounts.put(categoryNames.get(key), andCardinality(bits, withoutCategory)));
+            counts.put("category", categoryCounts);
+
+            BitSet withoutPrice = intersect(categoryMask, null, stockMask);
+            Map<String, Integer> priceCounts = new LinkedHashMap<>();
+            for (PriceBand band : PriceBand.values()) {
+                priceCounts.put(band.label, andCardinality(byPrice.get(band), withoutPrice));
+            }
+            counts.put("price", priceCounts);
+
+            BitSet withoutStock = intersect(categoryMask, priceMask, null);
+            Map<String, Integer> stockCounts = new LinkedHashMap<>();
+            for (StockState state : StockState.values()) {
+                stockCounts.put(state.label, andCardinality(byStock.get(state), withoutStock));
+            }
+            counts.put("stock", stockCounts);
+
+            return new FacetResult(ids, matches.cardinality(), counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Long id, String category, BigDecimal price, int stockQuantity) {
+        Integer ordinal = ordinals.get(id);
+        if (ordinal == null) {
+            ordinal = nextOrdinal++;
+            if (ordinal >= productIds.length) {
+                productIds = Arrays.copyOf(productIds, productIds.length * 2);
+            }
+            productIds[ordinal] = id;
+            ordinals.put(id, ordinal);
+        }
+        live.set(ordinal);
+
+        String key = categoryKey(category);
+        if (key != null) {
+            byCategory.computeIfAbsent(key, k -> new BitSet()).set(ordinal);
+            categoryNames.putIfAbsent(key, category.trim());
+        }
+        PriceBand band = PriceBand.of(price);
+        byPrice.computeIfAbsent(band, b -> new BitSet()).set(ordinal);
+        StockState state = StockState.of(stockQuantity);
+        byStock.computeIfAbsent(state, s -> new BitSet()).set(ordinal);
+        current.put(id, new Facets(key, band, state));
+    }
+
+    private void clearFacets(Long id) {
+        Facets facets = current.remove(id);
+        if (facets == null) {
+            return;
+        }
+        int ordinal = ordinals.get(id);
+        if (facets.category() != null) {
+            BitSet bits = byCategory.get(facets.category());
+            bits.clear(ordinal);
+            if (bits.isEmpty()) {
+                byCategory.remove(facets.category());
+                categoryNames.remove(facets.category());
+            }
+        }
+        byPrice.get(facets.price()).clear(ordinal);
+        byStock.get(facets.stock()).clear(ordinal);
+    }
+
+    private static String categoryKey(String category) {
+        if (category == null || category.isBlank()) {
+            return null;
+        }
+        return category.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Null means "no selection" for that facet; a selection matching nothing yields an empty set
+    private static BitSet union(List<BitSet> selected) {
+        if (selected.isEmpty()) {
+            return null;
+        }
+        BitSet result = new BitSet();
+        for (BitSet bits : selected) {
+            if (bits != null) {
+                result.or(bits);
+            }
+        }
+        return result;
+    }
+
+    private BitSet intersect(BitSet a, BitSet b, BitSet c) {
+        BitSet result = (BitSet) live.clone();
+        if (a != null) {
+            result.and(a);
+        }
+        if (b != null) {
+            result.and(b);
+        }
+        if (c != null) {
+            result.and(c);
+        }
+        return result;
+    }
+
+    private static int andCardinality(BitSet bits, BitSet mask) {
+        if (bits == null) {
+            return 0;
+        }
+        BitSet copy = (BitSet) bits.clone();
+        copy.and(mask);
+        return copy.cardinality();
+    }
+
+    private record Facets(String category, PriceBand price, StockState stock) {
+    }
+
+    public record FacetResult(List<Long> ids, long total, Map<String, Map<String, Integer>> counts) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.buygreen.service;
+
+import com.buygreen.model.ProductImage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Brings a product's image rows in line with a new URL list by diffing against the
+ * current rows: URLs that stay keep their row (only the position is rewritten if it
+ * moved), removed URLs are deleted and new ones inserted, each kind as one JDBC batch.
+ * An unchanged list issues no statements at all.
+ */
+@Component
+public class ProductImageSync {
+
+    private static final String DELETE_IMAGE = "DELETE FROM product_images WHERE id = ?";
+    private static final String MOVE_IMAGE = "UPDATE product_images SET position = ? WHERE id = ?";
+    private static final String INSERT_IMAGE =
+            "INSERT INTO product_images (product_id, image_url, position) VALUES (?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Must run inside the caller's transaction. Returns false if nothing had to change.
+     */
+    public boolean sync(Long productId, List<ProductImage> current, List<String> urls) {
+        // The same URL may appear more than once, so match rows to URLs one for one
+        Map<String, ArrayDeque<ProductImage>> byUrl = new HashMap<>();
+        if (current != null) {
+            for (ProductImage image : current) {
+                byUrl.computeIfAbsent(image.getImageUrl(), u -> new ArrayDeque<>()).add(image);
+            }
+        }
+
+        List<Object[]> moves = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        for (int position = 0; position < urls.size(); position++) {
+            String url = urls.get(position);
+            ArrayDeque<ProductImage> rows = byUrl.get(url);
+            ProductImage kept = rows != null ? rows.poll() : null;
+            if (kept == null) {
+                inserts.add(new Object[]{productId, url, position});
+            } else if (kept.getPosition() != position) {
+                moves.add(new Object[]{position, kept.getId()});
+            }
+        }
+        List<Object[]> deletes = new ArrayList<>();
+        for (ArrayDeque<ProductImage> rows : byUrl.values()) {
+            for (ProductImage image : rows) {
+                deletes.add(new Object[]{image.getId()});
+            }
+        }
+
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_IMAGE, deletes);
+        }
+        if (!moves.isEmpty()) {
+            jdbcTemplate.batchUpdate(MOVE_IMAGE, moves);
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_IMAGE, inserts);
+        }
+        return !deletes.isEmpty() || !moves.isEmpty() || !inserts.isEmpty();
+    }
+}
@@ -0,0 +1,395 @@
+package com.buygreen.service;
+
+import com.buygreen.model.Product;
+import com.buygreen.model.ProductImage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming bulk product import (CSV or NDJSON).
+ * Rows are parsed one at a time from the request stream and written in chunks:
+ * each chunk is its own transaction with one JDBC batch for products and one
+ * for their images. Bad rows are reported by line number and skipped; a chunk the
+ * database rejects is written again row by row, so one bad row costs only itself.
+ */
+@Service
+public class ProductImportService {
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    // Keep the error list bounded however bad the file is
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final String INSERT_PRODUCT =
+            "INSERT INTO products (name, description, price, stock_quantity, category, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_IMAGE =
+            "INSERT INTO product_images (product_id, image_url, position) VALUES (?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${product.import.batch-size:500}")
+    private int batchSize;
+
+    public Map<String, Object> importProducts(BufferedReader reader, Format format) throws IOException {
+        ImportReport report = new ImportReport();
+        List<ImportRow> chunk = new ArrayList<>(batchSize);
+
+        RowSource source = format == Format.CSV ? new CsvRowSource(reader) : new NdjsonRowSource(reader);
+        ImportRow row;
+        while ((row = source.next(report)) != null) {
+            chunk.add(row);
+            if (chunk.size() >= batchSize) {
+                writeChunk(chunk, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, report);
+        }
+        return report.toMap();
+    }
+
+    private void writeChunk(List<ImportRow> chunk, ImportReport report) {
+        List<Product> saved;
+        try {
+            saved = insert(chunk);
+        } catch (RuntimeException e) {
+            // The chunk rolled back as a whole; write it again a row per transaction so only
+            // the rows the database rejects are reported and the rest still go in
+            saved = new ArrayList<>(chunk.size());
+            for (ImportRow r : chunk) {
+                try {
+                    saved.addAll(insert(List.of(r)));
+                } catch (RuntimeException rowFailure) {
+                    report.error(r.line, "Could not be saved: "
+                            + NestedExceptionUtils.getMostSpecificCause(rowFailure).getMessage());
+                }
+            }
+        }
+        if (!saved.isEmpty()) {
+            report.imported += saved.size();
+            productService.onProductsImported(saved);
+        }
+    }
+
+    // One transaction: one JDBC batch for the products, one for their images
+    private List<Product> insert(List<ImportRow> rows) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        return tx.execute(status -> jdbcTemplate.execute((ConnectionCallback<List<Product>>) connection -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Product> products = new ArrayList<>(rows.size());
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_PRODUCT, Statement.RETURN_GENERATED_KEYS)) {
+                for (ImportRow r : rows) {
+                    insert.setString(1, r.name);
+                    insert.setString(2, r.description);
+                    insert.setBigDecimal(3, r.price);
+                    insert.setInt(4, r.stockQuantity);
+                    insert.setString(5, r.category);
+                    insert.setTimestamp(6, Timestamp.valueOf(now));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                // MySQL hands back the generated ids of a batched insert in row order
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    for (ImportRow r : rows) {
+                        if (!keys.next()) {
+                            throw new IllegalStateException("Missing generated id for line " + r.line);
+                        }
+                        products.add(r.toProduct(keys.getLong(1), now));
+                    }
+                }
+            }
+            List<ProductImage> pending = new ArrayList<>();
+            try (PreparedStatement images = connection.prepareStatement(INSERT_IMAGE, Statement.RETURN_GENERATED_KEYS)) {
+                for (Product product : products) {
+                    for (ProductImage image : product.getProductImages()) {
+                        images.setLong(1, product.getId());
+                        images.setString(2, image.getImageUrl());
+                        images.setInt(3, image.getPosition());
+                        images.addBatch();
+                        pending.add(image);
+                    }
+                }
+                if (!pending.isEmpty()) {
+                    images.executeBatch();
+                    try (ResultSet keys = images.getGeneratedKeys()) {
+                        for (ProductImage image : pending) {
+                            if (keys.next()) {
+                                image.setId(keys.getLong(1));
+                            }
+                        }
+                    }
+                }
+            }
+            return products;
+        }));
+    }
+
+    private interface RowSource {
+        ImportRow next(ImportReport report) throws IOException;
+    }
+
+    private static final class CsvRowSource implements RowSource {
+        private static final List<String> UNTERMINATED = List.of();
+
+        private final BufferedReader reader;
+        private Map<String, Integer> columns;
+        private long line;
+
+        CsvRowSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ImportRow next(ImportReport report) throws IOException {
+            while (true) {
+                long startLine = line + 1;
+                List<String> fields = readRecord();
+                if (fields == UNTERMINATED) {
+                    if (columns == null) {
+                        throw new IllegalArgumentException("Unterminated quoted field in the CSV header");
+                    }
+                    // Nothing after an open quote can be split into records; keep what was read so far
+                    report.processed++;
+                    report.error(startLine, "Unterminated quoted field; the rest of the file was not read");
+                    return null;
+                }
+                if (fields == null) {
+                    return null;
+                }
+                if (fields.size() == 1 && fields.get(0).isBlank()) {
+                    continue;
+                }
+                if (columns == null) {
+                    columns = new HashMap<>();
+                    for (int i = 0; i < fields.size(); i++) {
+                        columns.put(fields.get(i).trim().toLowerCase(Locale.ROOT), i);
+                    }
+                    if (!columns.containsKey("name") || !columns.containsKey("price")) {
+                        throw new IllegalArgumentException("CSV header must include at least name and price");
+                    }
+                    continue;
+                }
+                report.processed++;
+                try {
+                    String images = field(fields, "imageurls");
+                    List<String> imageUrls = new ArrayList<>();
+                    if (images != null) {
+                        for (String url : images.split("\\|")) {
+                            if (!url.isBlank()) {
+                                imageUrls.add(url.trim());
+                            }
+                        }
+                    }
+                    return ImportRow.validated(startLine, field(fields, "name"), field(fields, "description"),
+                            field(fields, "price"), field(fields, "stockquantity"), field(fields, "category"), imageUrls);
+                } catch (IllegalArgumentException e) {
+                    report.error(startLine, e.getMessage());
+                }
+            }
+        }
+
+        private String field(List<String> fields, String column) {
+            Integer index = columns.get(column);
+            return index != null && index < fields.size() ? fields.get(index) : null;
+        }
+
+        // RFC 4180 record: quoted fields may contain commas, doubled quotes and line breaks.
+        // Returns UNTERMINATED when the input ends inside a quoted field.
+        private List<String> readRecord() throws IOException {
+            String text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+            List<String> fields = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                for (int i = 0; i < text.length(); i++) {
+                    char c = text.charAt(i);
+                    if (quoted) {
+                        if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                            current.append('"');
+                            i++;
+                        } else if (c == '"') {
+                            quoted = false;
+                        } else {
+                            current.append(c);
+                        }
+                    } else if (c == '"') {
+                        quoted = true;
+                    } else if (c == ',') {
+                        fields.add(current.toString());
+                        current.setLength(0);
+                    } else {
+                        current.append(c);
+                    }
+                }
+                if (!quoted) {
+                    break;
+                }
+                text = reader.readLine();
+                if (text == null) {
+                    return UNTERMINATED;
+                }
+                line++;
+                current.append('\n');
+            }
+            fields.add(current.toString());
+            return fields;
+        }
+    }
+
+    private final class NdjsonRowSource implements RowSource {
+        private final BufferedReader reader;
+        private long line;
+
+        NdjsonRowSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ImportRow next(ImportReport report) throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                report.processed++;
+                try {
+                    JsonNode node = objectMapper.readTree(text);
+                    List<String> imageUrls = new ArrayList<>();
+                    JsonNode images = node.path("imageUrls");
+                    if (images.isArray()) {
+                        images.forEach(url -> imageUrls.add(url.asText()));
+                    }
+                    return ImportRow.validated(line, text(node, "name"), text(node, "description"),
+                            text(node, "price"), text(node, "stockQuantity"), text(node, "category"), imageUrls);
+                } catch (IllegalArgumentException e) {
+                    report.error(line, e.getMessage());
+                } catch (IOException e) {
+                    report.error(line, "Malformed JSON: " + e.getMessage());
+                }
+            }
+            return null;
+        }
+
+        private String text(JsonNode node, String field) {
+            JsonNode value = node.get(field);
+            return value == null || value.isNull() ? null : value.asText();
+        }
+    }
+
+    private record ImportRow(long line, String name, String description, BigDecimal price, int stockQuantity,
+                             String category, List<String> imageUrls) {
+
+        static ImportRow validated(long line, String name, String description, String price, String stock,
+                                   String category, List<String> imageUrls) {
+            if (name == null || name.isBlank()) {
+                throw new IllegalArgumentException("Product name is required");
+            }
+            BigDecimal parsedPrice;
+            try {
+                parsedPrice = new BigDecimal(price.trim());
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid price: " + price);
+            }
+            if (parsedPrice.compareTo(BigDecimal.ZERO) <= 0) {
+                throw new IllegalArgumentException("Product price must be greater than zero");
+            }
+            int parsedStock;
+            try {
+                parsedStock = stock == null || stock.isBlank() ? 0 : Integer.parseInt(stock.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid stock quantity: " + stock);
+            }
+            if (parsedStock < 0) {
+                throw new IllegalArgumentException("Stock quantity cannot be negative");
+            }
+            return new ImportRow(line, name.trim(), description, parsedPrice, parsedStock,
+                    category != null ? category.trim() : null, imageUrls);
+        }
+
+        Product toProduct(long id, LocalDateTime updatedAt) {
+            Product product = new Product();
+            product.setId(id);
+            product.setName(name);
+            product.setDescription(description);
+            product.setPrice(price);
+            product.setStockQuantity(stockQuantity);
+            product.setCategory(category);
+            product.setUpdatedAt(updatedAt);
+            product.setVersion(0L);
+            List<ProductImage> images = new ArrayList<>(imageUrls.size());
+            for (String url : imageUrls) {
+                images.add(new ProductImage(id, url, images.size()));
+            }
+            product.setProductImages(images);
+            return product;
+        }
+    }
+
+    private static final class ImportReport {
+        private long processed;
+        private long imported;
+        private long failed;
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+
+        void error(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("line", line);
+                error.put("message", message);
+                errors.add(error);
+            }
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("processed", processed);
+            result.put("imported", imported);
+            result.put("failed", failed);
+            result.put("errors", errors);
+            return result;
+        }
+    }
+}
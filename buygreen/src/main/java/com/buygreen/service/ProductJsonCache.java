@@ -0,0 +1,102 @@
+package com.buygreen.service;
+
+import com.buygreen.model.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pre-encoded UTF-8 JSON for product detail responses.
+ * A hot product is serialized once and then served as the same byte array until
+ * it changes. Each entry remembers the ETag it was encoded from, so a copy made
+ * from an older version of the product is never served.
+ */
+@Component
+public class ProductJsonCache {
+
+    @Value("${product.json-cache.max-size:500}")
+    private int maxSize;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private final LinkedHashMap<Long, Encoded> entries = new LinkedHashMap<>(128, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Encoded> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    /**
+     * Returns the JSON for this version of the product, encoding and caching it on a miss.
+     */
+    public byte[] toJson(Product product) {
+        String etag = product.etag();
+        synchronized (this) {
+            Encoded encoded = entries.get(product.getId());
+            if (encoded != null && encoded.etag().equals(etag)) {
+                hits.incrementAndGet();
+                return encoded.json();
+            }
+        }
+        misses.incrementAndGet();
+        byte[] json = encode(product);
+        synchronized (this) {
+            entries.put(product.getId(), new Encoded(etag, json));
+        }
+        return json;
+    }
+
+    // Re-encodes a product that is already hot; cold products are left to the next read
+    public void refresh(Product product) {
+        synchronized (this) {
+            if (!entries.containsKey(product.getId())) {
+                return;
+            }
+        }
+        byte[] json = encode(product);
+        synchronized (this) {
+            entries.put(product.getId(), new Encoded(product.etag(), json));
+        }
+    }
+
+    public synchronized void invalidate(Long productId) {
+        entries.remove(productId);
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("entries", entries.size());
+            stats.put("bytes", entries.values().stream().mapToLong(e -> e.json().length).sum());
+        }
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) hitCount / total);
+        return stats;
+    }
+
+    private byte[] encode(Product product) {
+        try {
+            return objectMapper.writeValueAsBytes(product);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize product " + product.getId(), e);
+        }
+    }
+
+    private record Encoded(String etag, byte[] json) {
+    }
+}
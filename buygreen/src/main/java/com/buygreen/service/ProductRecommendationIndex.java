@@ -0,0 +1,205 @@
+package com.buygreen.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * "Frequently bought together" from order history.
+ * Keeps a sparse, symmetric product x product matrix of how many orders contained
+ * both products. Committed orders are folded in as they happen; a scheduled rebuild
+ * from order_items corrects any drift (deleted orders, missed events).
+ */
+@Component
+public class ProductRecommendationIndex {
+
+    private static final Logger logger = Logger.getLogger(ProductRecommendationIndex.class.getName());
+
+    public static final int TOP_K = 20;
+
+    // A basket this large says little about any single pair and costs n^2 updates
+    private static final int MAX_BASKET = 50;
+
+    private static final String BASKETS_QUERY =
+            "SELECT order_id, product_id FROM order_items "
+                    + "WHERE order_id IS NOT NULL AND product_id IS NOT NULL ORDER BY order_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private LongObjectHashMap<LongIntHashMap> matrix = new LongObjectHashMap<>();
+    // Top-K per product, computed on first read and dropped when the product's row changes
+    private final Map<Long, long[]> topK = new ConcurrentHashMap<>();
+
+    // Orders committed while a rebuild is scanning; replayed unless the scan already saw them
+    private boolean rebuilding;
+    private final List<Basket> pending = new ArrayList<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${product.recommendations.rebuild-interval-ms:3600000}",
+            initialDelayString = "${product.recommendations.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            pending.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        LongObjectHashMap<LongIntHashMap> fresh = new LongObjectHashMap<>();
+        long[] basket = new long[MAX_BASKET];
+        long[] state = {Long.MIN_VALUE, 0, 0}; // current order id, basket size, orders seen
+        try {
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(BASKETS_QUERY);
+                statement.setFetchSize(1000);
+                return statement;
+            }, rs -> {
+                long orderId = rs.getLong(1);
+                if (orderId != state[0]) {
+                    addBasket(fresh, basket, (int) state[1]);
+                    state[0] = orderId;
+                    state[1] = 0;
+                    state[2]++;
+                }
+                long productId = rs.getLong(2);
+                int size = (int) state[1];
+                if (size < MAX_BASKET && !contains(basket, size, productId)) {
+                    basket[size] = productId;
+                    state[1] = size + 1;
+                }
+            });
+            addBasket(fresh, basket, (int) state[1]);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                rebuilding = false;
+                pending.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        long lastScanned = state[0];
+        lock.writeLock().lock();
+        try {
+            for (Basket order : pending) {
+                if (order.orderId() > lastScanned) {
+                    addBasket(fresh, order.productIds(), order.productIds().length);
+                }
+            }
+            matrix = fresh;
+            topK.clear();
+            rebuilding = false;
+            pending.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Product recommendation index built from " + state[2] + " orders ("
+                + fresh.size() + " products) in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public void recordOrder(Long orderId, Collection<Long> productIds) {
+        long[] basket = productIds.stream().mapToLong(Long::longValue).distinct().limit(MAX_BASKET).toArray();
+        if (basket.length < 2) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            addBasket(matrix, basket, basket.length);
+            for (long id : basket) {
+                topK.remove(id);
+            }
+            if (rebuilding) {
+                pending.add(new Basket(orderId != null ? orderId : Long.MAX_VALUE, basket));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the products most often bought together with the given one, strongest first.
+     */
+    public List<Long> recommend(Long productId, int limit) {
+        lock.readLock().lock();
+        try {
+            long[] top = topK.computeIfAbsent(productId, this::computeTop);
+            List<Long> ids = new ArrayList<>(Math.min(limit, top.length));
+            for (int i = 0; i < top.length && ids.size() < limit; i++) {
+                ids.add(top[i]);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] computeTop(Long productId) {
+        LongIntHashMap row = matrix.get(productId);
+        if (row == null) {
+            return new long[0];
+        }
+        // Min-heap of (count, id) keeps the K strongest without sorting the whole row
+        PriorityQueue<long[]> heap = new PriorityQueue<>(TOP_K, ProductRecommendationIndex::compareWeakestFirst);
+        row.forEach((other, count) -> {
+            long[] entry = {count, other};
+            if (heap.size() < TOP_K) {
+                heap.add(entry);
+            } else if (compareWeakestFirst(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        });
+        long[] top = new long[heap.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = heap.poll()[1];
+        }
+        return top;
+    }
+
+    // More co-purchases is stronger; ties go to the lower id so results are stable
+    private static int compareWeakestFirst(long[] a, long[] b) {
+        int byCount = Long.compare(a[0], b[0]);
+        return byCount != 0 ? byCount : Long.compare(b[1], a[1]);
+    }
+
+    private static void addBasket(LongObjectHashMap<LongIntHashMap> target, long[] basket, int size) {
+        for (int i = 0; i < size; i++) {
+            LongIntHashMap row = target.computeIfAbsent(basket[i], id -> new LongIntHashMap());
+            for (int j = 0; j < size; j++) {
+                if (i != j) {
+                    row.add(basket[j], 1);
+                }
+            }
+        }
+    }
+
+    private static boolean contains(long[] basket, int size, long productId) {
+        for (int i = 0; i < size; i++) {
+            if (basket[i] == productId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Basket(long orderId, long[] productIds) {
+    }
+}
@@ -0,0 +1,318 @@
+package com.buygreen.service;
+
+import com.buygreen.model.Product;
+import com.buygreen.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * In-memory inverted index over product name, category and description.
+ * Queries are ranked with BM25 (field-weighted term frequencies) and only the
+ * requested page is materialised, so search cost tracks the number of matching
+ * postings rather than the size of the products table. Misspelled tokens fall back
+ * to nearby dictionary terms found through a trigram index.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger logger = Logger.getLogger(ProductSearchIndex.class.getName());
+
+    // BM25 tuning constants (standard defaults)
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Field weights: a hit in the name matters more than one buried in the description
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    // The last query token is treated as a prefix (search-as-you-type); cap how far it expands
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    // Typo tolerance: tokens with no exact hit are matched to dictionary terms a few edits away,
+    // each edit scaling the term's contribution down
+    private static final int MIN_FUZZY_LENGTH = 5;
+    private static final int MAX_FUZZY_EXPANSIONS = 8;
+    private static final double FUZZY_PENALTY = 0.5;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is",
+            "it", "of", "on", "or", "the", "to", "with");
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (product id -> weighted term frequency); sorted so prefixes can be expanded
+    private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final TrigramTermIndex termGrams = new TrigramTermIndex();
+    private double totalLength;
+    private volatile boolean ready;
+
+    // Changes that arrive while a rebuild reads the table, replayed over its rows (null product = removal)
+    private boolean rebuilding;
+    private final List<Object[]> pending = new ArrayList<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            pending.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<Object[]> rows;
+        try {
+            rows = productRepository.findSearchableFields();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                rebuilding = false;
+                pending.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            termGrams.clear();
+            totalLength = 0;
+            for (Object[] row : rows) {
+                addDocument((Long) row[0], (String) row[1], (String) row[2], (String) row[3]);
+            }
+            // The rows may predate these, so they win
+            for (Object[] change : pending) {
+                removeDocument((Long) change[0]);
+                if (change[1] != null) {
+                    Product product = (Product) change[1];
+                    addDocument(product.getId(), product.getName(), product.getDescription(), product.getCategory());
+                }
+            }
+            pending.clear();
+            rebuilding = false;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Product search index built with " + rows.size() + " products in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(product.getId());
+            addDocument(product.getId(), product.getName(), product.getDescription(), product.getCategory());
+            if (rebuilding) {
+                pending.add(new Object[]{product.getId(), product});
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+            if (rebuilding) {
+                pending.add(new Object[]{productId, null});
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks products matching any query term and returns only the ids in [offset, offset + limit).
+     */
+    public SearchHits search(String query, long offset, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return new SearchHits(List.of(), 0);
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int docCount = documents.size();
+            double avgLength = docCount == 0 ? 1 : totalLength / docCount;
+            for (int i = 0; i < terms.size(); i++) {
+                boolean isLast = i == terms.size() - 1;
+                Set<String> expanded = expand(terms.get(i), isLast);
+                if (expanded.stream().anyMatch(postings::containsKey)) {
+                    for (String term : expanded) {
+                        accumulate(term, docCount, avgLength, 1.0, scores);
+                    }
+                } else if (terms.get(i).length() >= MIN_FUZZY_LENGTH) {
+                    for (TrigramTermIndex.Match match : termGrams.match(terms.get(i), maxEdits(terms.get(i)), MAX_FUZZY_EXPANSIONS)) {
+                        accumulate(match.term(), docCount, avgLength, Math.pow(FUZZY_PENALTY, match.distance()), scores);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return topPage(scores, offset, limit);
+    }
+
+    /**
+     * Lower-cases and splits text on anything that is not a letter or digit, dropping stop words.
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private void addDocument(Long id, String name, String description, String category) {
+        Map<String, Float> termFrequencies = new HashMap<>();
+        int length = addField(termFrequencies, name, NAME_WEIGHT)
+                + addField(termFrequencies, category, CATEGORY_WEIGHT)
+                + addField(termFrequencies, description, DESCRIPTION_WEIGHT);
+        for (Map.Entry<String, Float> entry : termFrequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), t -> {
+                termGrams.add(t);
+                return new HashMap<>();
+            }).put(id, entry.getValue());
+        }
+        documents.put(id, new Document(termFrequencies.keySet().toArray(new String[0]), length));
+        totalLength += length;
+    }
+
+    private int addField(Map<String, Float> termFrequencies, String text, float weight) {
+        List<String> tokens = tokenize(text);
+        for (String token : tokens) {
+            termFrequencies.merge(token, weight, Float::sum);
+        }
+        return tokens.size();
+    }
+
+    private void removeDocument(Long id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms()) {
+            Map<Long, Float> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(id);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                    termGrams.remove(term);
+                }
+            }
+        }
+        totalLength -= document.length();
+    }
+
+    private Set<String> expand(String term, boolean allowPrefix) {
+        if (!allowPrefix) {
+            return Set.of(term);
+        }
+        Set<String> expanded = new HashSet<>();
+        expanded.add(term);
+        SortedMap<String, Map<Long, Float>> matches = postings.subMap(term, term + Character.MAX_VALUE);
+        for (String candidate : matches.keySet()) {
+            if (expanded.size() >= MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            expanded.add(candidate);
+        }
+        return expanded;
+    }
+
+    // One edit for short words, two from nine letters on
+    private static int maxEdits(String token) {
+        return token.length() >= 9 ? 2 : 1;
+    }
+
+    private void accumulate(String term, int docCount, double avgLength, double boost, Map<Long, Double> scores) {
+        Map<Long, Float> docs = postings.get(term);
+        if (docs == null) {
+            return;
+        }
+        double idf = Math.log(1 + (docCount - docs.size() + 0.5) / (docs.size() + 0.5));
+        for (Map.Entry<Long, Float> posting : docs.entrySet()) {
+            Document document = documents.get(posting.getKey());
+            double tf = posting.getValue();
+            double norm = K1 * (1 - B + B * document.length() / avgLength);
+            scores.merge(posting.getKey(), boost * idf * (tf * (K1 + 1)) / (tf + norm), Double::sum);
+        }
+    }
+
+    // Keeps only offset + limit candidates in a min-heap instead of sorting every match
+    private SearchHits topPage(Map<Long, Double> scores, long offset, int limit) {
+        long wanted = offset + limit;
+        if (offset >= scores.size()) {
+            return new SearchHits(List.of(), scores.size());
+        }
+        int heapSize = (int) Math.min(wanted, scores.size());
+        PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(heapSize, ProductSearchIndex::compareHits);
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            if (heap.size() < heapSize) {
+                heap.add(entry);
+            } else if (compareHits(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        List<Long> ranked = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ranked.add(heap.poll().getKey());
+        }
+        Collections.reverse(ranked);
+        return new SearchHits(ranked.subList((int) offset, ranked.size()), scores.size());
+    }
+
+    // Higher score first; ties broken by lower id so paging is stable
+    private static int compareHits(Map.Entry<Long, Double> a, Map.Entry<Long, Double> b) {
+        int byScore = Double.compare(a.getValue(), b.getValue());
+        return byScore != 0 ? byScore : Long.compare(b.getKey(), a.getKey());
+    }
+
+    private record Document(String[] terms, int length) {
+    }
+
+    public record SearchHits(List<Long> ids, long total) {
+    }
+}
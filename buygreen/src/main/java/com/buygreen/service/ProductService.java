@@ -1,18 +1,54 @@
 package com.buygreen.service;
 
+import com.buygreen.dto.CursorPage;
+import com.buygreen.dto.FacetedProductPage;
+import com.buygreen.dto.ProductBatch;
+import com.buygreen.dto.ProductPatch;
+import com.buygreen.dto.ProductSummary;
 import com.buygreen.model.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
 
     public interface ProductService {
         Product addProduct(Product product);
         Page<Product> getAllProducts(Pageable pageable);
+        CursorPage<Product> scrollProducts(String cursor, int size, boolean includeTotal);
         Product updateProduct(Long id, Product product);
+        // Applies only the fields present; price or stock edits never touch the image rows
+        Product patchProduct(Long id, ProductPatch patch);
         String deleteProduct(Long id);
         Product getProductById(Long id);
 
+        ProductBatch getProductsByIds(List<Long> ids);
+
         Page<Product> searchProducts(String query, Pageable pageable);
+
+        // Lightweight listing variants (no image collections)
+        Page<ProductSummary> getProductSummaries(Pageable pageable);
+        Page<ProductSummary> searchProductSummaries(String query, Pageable pageable);
+
+        FacetedProductPage filterProducts(List<String> categories, List<String> priceBands,
+                                          List<String> stockStates, Pageable pageable);
+
+        // Called after a committed stock change made outside this service (e.g. checkout)
+        void onStockChanged(Long productId, ProductStockUpdater.StockLevel level);
+
+        void onProductSold(Long productId, int quantity);
+
+        void onOrderPlaced(Long orderId, Collection<Long> productIds);
+
+        // Called after a bulk import chunk has been committed outside JPA
+        void onProductsImported(List<Product> products);
+
+        List<ProductSuggestIndex.Suggestion> suggestProducts(String prefix, int limit);
+
+        // Frequently bought together, in stock only
+        List<Product> getRecommendations(Long productId, int limit);
+
+        // Closest by product text (TF-IDF cosine), for products without purchase history
+        List<Product> getSimilarProducts(Long productId, int limit);
     }
 
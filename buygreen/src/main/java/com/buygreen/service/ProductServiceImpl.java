@@ -1,14 +1,30 @@
 package com.buygreen.service;
 
 
+import com.buygreen.dto.CursorPage;
+import com.buygreen.dto.FacetedProductPage;
+import com.buygreen.dto.ProductBatch;
+import com.buygreen.dto.ProductPatch;
+import com.buygreen.dto.ProductSummary;
 import com.buygreen.model.Product;
 import com.buygreen.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 public class ProductServiceImpl  implements ProductService{
@@ -16,47 +32,142 @@ public class ProductServiceImpl  implements ProductService{
     @Autowired
     private ProductRepository repo;
 
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductSuggestIndex suggestIndex;
+
+    @Autowired
+    private ProductFacetIndex facetIndex;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private ProductJsonCache productJson;
+
+    @Autowired
+    private ProductRecommendationIndex recommendationIndex;
+
+    @Autowired
+    private ProductSimilarityIndex similarityIndex;
+
+    @Autowired
+    private ProductImageSync imageSync;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionRetry transactionRetry;
+
+    static final int MAX_BATCH_IDS = 200;
+
+    private final CachedCount productCount = new CachedCount(() -> repo.count(), 60_000);
+
     @Override
     public Product addProduct(Product product) {
+        product.setUpdatedAt(LocalDateTime.now());
+        // Images are inserted with the product's id by the owning association, in the same save
         Product saved = repo.save(product);
-        // Update productImages with correct productId after save
-        if (saved.getProductImages() != null && !saved.getProductImages().isEmpty()) {
-            final Long productId = saved.getId();
-            saved.getProductImages().forEach(img -> img.setProductId(productId));
-            saved = repo.save(saved);
+        if (saved.getProductImages() != null) {
+            saved.getProductImages().forEach(img -> img.setProductId(saved.getId()));
         }
+        productChanged(saved);
         return saved;
     }
 
     @Override
     public Page<Product> getAllProducts(Pageable pageable) {
-        return repo.findAll(pageable);
+        Page<Product> cached = productCache.getPage(pageable);
+        if (cached != null) {
+            return cached;
+        }
+        Page<Product> page = repo.findAll(pageable);
+        productCache.putPage(pageable, page);
+        return page;
+    }
+
+    @Override
+    public CursorPage<Product> scrollProducts(String cursor, int size, boolean includeTotal) {
+        long afterId = cursor != null ? CursorPage.Cursor.decode(cursor).id() : 0L;
+        List<Product> rows = repo.findPageAfter(afterId, PageRequest.of(0, size + 1));
+        return CursorPage.of(rows, size, p -> new CursorPage.Cursor(String.valueOf(p.getId()), p.getId()),
+                includeTotal ? productCount.get() : null);
     }
 
     @Override
     public Product updateProduct(Long id, Product product) {
-        Product existing = repo.findById(id).orElse(null);
-        if(existing == null) return null;
+        return applyUpdate(id, product.getVersion(), existing -> {
+            existing.setName(product.getName());
+            existing.setDescription(product.getDescription());
+            existing.setPrice(product.getPrice());
+            existing.setCategory(product.getCategory());
+            existing.setStockQuantity(product.getStockQuantity());
+        }, product.getImageUrls());
+    }
 
-        existing.setName(product.getName());
-        existing.setDescription(product.getDescription());
-        existing.setPrice(product.getPrice());
-        existing.setImageUrls(product.getImageUrls());
-        existing.setCategory(product.getCategory());
-        existing.setStockQuantity(product.getStockQuantity());
-        
-        // Ensure productImages have correct productId
-        if (existing.getProductImages() != null) {
-            existing.getProductImages().forEach(img -> img.setProductId(id));
+    @Override
+    public Product patchProduct(Long id, ProductPatch patch) {
+        if (patch.getStockQuantity() != null && patch.getStockQuantity() < 0) {
+            throw new IllegalArgumentException("Stock quantity cannot be negative");
         }
+        return applyUpdate(id, patch.getVersion(), existing -> {
+            if (patch.getName() != null) {
+                existing.setName(patch.getName());
+            }
+            if (patch.getDescription() != null) {
+                existing.setDescription(patch.getDescription());
+            }
+            if (patch.getPrice() != null) {
+                existing.setPrice(patch.getPrice());
+            }
+            if (patch.getCategory() != null) {
+                existing.setCategory(patch.getCategory());
+            }
+            if (patch.getStockQuantity() != null) {
+                existing.setStockQuantity(patch.getStockQuantity());
+            }
+        }, patch.getImageUrls());
+    }
 
-        return repo.save(existing);
+    // Scalar fields go through JPA; images (when given) are diffed against the stored rows, not rewritten.
+    // A caller that sends the version it read gets a conflict if the row moved on since; without one,
+    // a concurrent write just makes this re-read the row and apply the edit again.
+    private Product applyUpdate(Long id, Long expectedVersion, Consumer<Product> fields, List<String> imageUrls) {
+        Product saved = transactionRetry.execute("updateProduct", () -> {
+            Product existing = repo.findById(id).orElse(null);
+            if (existing == null) {
+                return null;
+            }
+            if (expectedVersion != null && !expectedVersion.equals(existing.getVersion())) {
+                throw new IllegalStateException("Product was changed by someone else; reload it and try again");
+            }
+            fields.accept(existing);
+            existing.setUpdatedAt(LocalDateTime.now());
+            repo.saveAndFlush(existing);
+            if (imageUrls != null && imageSync.sync(id, existing.getProductImages(), imageUrls)) {
+                // The loaded image rows are stale now; a refresh would cascade to deleted ones, so reload instead
+                entityManager.detach(existing);
+                return repo.findById(id).orElseThrow();
+            }
+            return existing;
+        });
+        if (saved != null) {
+            productChanged(saved);
+        }
+        return saved;
     }
 
     @Override
     public String deleteProduct(Long id) {
         if(repo.existsById(id)) {
             repo.deleteById(id);
+            productRemoved(id);
             return "Product deleted successfully";
         }
         return "Product not found";
@@ -64,13 +175,197 @@ public class ProductServiceImpl  implements ProductService{
 
     @Override
     public Product getProductById(Long id) {
+        Product cached = productCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
         //findById returns an optioonal, so we use .orElse(null)
-        return repo.findById(id).orElse(null);
+        Product product = repo.findById(id).orElse(null);
+        productCache.put(product);
+        return product;
+    }
+
+    @Override
+    public ProductBatch getProductsByIds(List<Long> ids) {
+        Set<Long> unique = new LinkedHashSet<>(ids);
+        unique.remove(null);
+        if (unique.size() > MAX_BATCH_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_IDS + " ids can be requested at once");
+        }
+        Map<Long, Product> found = unique.isEmpty() ? Map.of() : loadAll(unique);
+        List<Product> products = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : unique) {
+            Product product = found.get(id);
+            if (product != null) {
+                products.add(product);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new ProductBatch(products, missing);
     }
 
     @Override
     public Page<Product> searchProducts(String query, Pageable pageable){
-        return repo.searchByNameOrDescription(query, pageable);
+        // Explicit sort orders (and the window before the index is built) still go to the database
+        if (!searchIndex.isReady() || pageable.getSort().isSorted()) {
+            return repo.searchByNameOrDescription(query, pageable);
+        }
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        ProductSearchIndex.SearchHits hits = searchIndex.search(query, offset, limit);
+        return new PageImpl<>(loadInOrder(hits.ids()), pageable, hits.total());
+    }
+
+    @Override
+    public Page<ProductSummary> getProductSummaries(Pageable pageable) {
+        return repo.findSummaries(pageable);
+    }
+
+    @Override
+    public Page<ProductSummary> searchProductSummaries(String query, Pageable pageable) {
+        if (!searchIndex.isReady() || pageable.getSort().isSorted()) {
+            return searchProducts(query, pageable).map(ProductServiceImpl::toSummary);
+        }
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        ProductSearchIndex.SearchHits hits = searchIndex.search(query, offset, limit);
+        if (hits.ids().isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, hits.total());
+        }
+        Map<Long, ProductSummary> byId = new HashMap<>();
+        for (ProductSummary summary : repo.findSummariesByIdIn(hits.ids())) {
+            byId.put(summary.getId(), summary);
+        }
+        List<ProductSummary> ordered = hits.ids().stream().map(byId::get).filter(s -> s != null).toList();
+        return new PageImpl<>(ordered, pageable, hits.total());
+    }
+
+    private static ProductSummary toSummary(Product product) {
+        List<String> images = product.getImageUrls();
+        return new ProductSummary(product.getId(), product.getName(), product.getPrice(),
+                product.getStockQuantity(), product.getCategory(), images.isEmpty() ? null : images.get(0));
+    }
+
+    @Override
+    public FacetedProductPage filterProducts(List<String> categories, List<String> priceBands,
+                                             List<String> stockStates, Pageable pageable) {
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        ProductFacetIndex.FacetResult result = facetIndex.filter(categories, priceBands, stockStates, offset, limit);
+        Page<Product> page = new PageImpl<>(loadInOrder(result.ids()), pageable, result.total());
+        return new FacetedProductPage(page, result.counts());
+    }
+
+    // Resolves ids through the cache first, then loads the rest with a single IN query
+    private List<Product> loadInOrder(List<Long> ids) {
+        Map<Long, Product> found = loadAll(ids);
+        List<Product> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product product = found.get(id);
+            if (product != null) {
+                ordered.add(product);
+            }
+        }
+        return ordered;
+    }
+
+    // Cache multi-get first, then a single IN query (images included) for whatever was not cached
+    private Map<Long, Product> loadAll(Collection<Long> ids) {
+        Map<Long, Product> found = productCache.getAll(ids);
+        if (found.size() < ids.size()) {
+            List<Long> missing = new ArrayList<>();
+            for (Long id : ids) {
+                if (!found.containsKey(id)) {
+                    missing.add(id);
+                }
+            }
+            for (Product product : repo.findWithImagesByIdIn(missing)) {
+                productCache.put(product);
+                found.put(product.getId(), product);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public void onStockChanged(Long productId, ProductStockUpdater.StockLevel level) {
+        productCache.updateStock(productId, level);
+        productJson.invalidate(productId);
+        facetIndex.updateStock(productId, level.stockQuantity());
+        catalogVersion.bump();
+    }
+
+    @Override
+    public void onProductSold(Long productId, int quantity) {
+        suggestIndex.recordSale(productId, quantity);
+    }
+
+    @Override
+    public void onOrderPlaced(Long orderId, Collection<Long> productIds) {
+        recommendationIndex.recordOrder(orderId, productIds);
+    }
+
+    @Override
+    public List<Product> getRecommendations(Long productId, int limit) {
+        List<Product> recommended = new ArrayList<>(limit);
+        for (Product product : loadInOrder(recommendationIndex.recommend(productId, ProductRecommendationIndex.TOP_K))) {
+            if (product.getStockQuantity() > 0 && recommended.size() < limit) {
+                recommended.add(product);
+            }
+        }
+        return recommended;
+    }
+
+    @Override
+    public List<Product> getSimilarProducts(Long productId, int limit) {
+        return loadInOrder(similarityIndex.similar(productId, limit));
+    }
+
+    @Override
+    public void onProductsImported(List<Product> products) {
+        for (Product product : products) {
+            productCache.put(product);
+            productJson.invalidate(product.getId());
+            searchIndex.index(product);
+            suggestIndex.index(product);
+            facetIndex.index(product);
+            similarityIndex.index(product);
+        }
+        productCache.invalidatePages();
+        productCount.invalidate();
+        catalogVersion.bump();
+    }
+
+    @Override
+    public List<ProductSuggestIndex.Suggestion> suggestProducts(String prefix, int limit) {
+        return suggestIndex.suggest(prefix, Math.min(limit, ProductSuggestIndex.TOP_K));
+    }
+
+    // Keeps every in-memory view of the catalog in step with a saved product
+    private void productChanged(Product saved) {
+        productCache.put(saved);
+        productJson.refresh(saved);
+        productCache.invalidatePages();
+        productCount.invalidate();
+        searchIndex.index(saved);
+        suggestIndex.index(saved);
+        facetIndex.index(saved);
+        similarityIndex.index(saved);
+        catalogVersion.bump();
+    }
+
+    private void productRemoved(Long id) {
+        productCache.invalidate(id);
+        productJson.invalidate(id);
+        productCache.invalidatePages();
+        productCount.invalidate();
+        searchIndex.remove(id);
+        suggestIndex.delete(id);
+        facetIndex.remove(id);
+        similarityIndex.remove(id);
+        catalogVersion.bump();
     }
 
 }
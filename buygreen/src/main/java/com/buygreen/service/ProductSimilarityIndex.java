@@ -0,0 +1,540 @@
+package com.buygreen.service;
+
+import com.buygreen.model.Product;
+import com.buygreen.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * Content-based "similar products": TF-IDF vectors over name, category and description
+ * with each product's top-N neighbours by cosine similarity precomputed in memory.
+ * The full table is computed in parallel on the fork-join pool; a text change to one
+ * product only recomputes the neighbourhoods it can affect.
+ */
+@Component
+public class ProductSimilarityIndex {
+
+    private static final Logger logger = Logger.getLogger(ProductSimilarityIndex.class.getName());
+
+    public static final int TOP_N = 10;
+
+    // Products per fork-join leaf task
+    private static final int FORK_THRESHOLD = 128;
+
+    // Same field emphasis as the search index
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    // Terms in more than this share of a large catalog add little but cost a scan of most products
+    private static final int COMMON_TERM_MIN_CATALOG = 100;
+    private static final int COMMON_TERM_DIVISOR = 4;
+
+    private static final Neighbours NO_NEIGHBOURS = new Neighbours(new int[0], new float[0]);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Table table = new Table();
+
+    // Changes that arrive while a rebuild is running, replayed onto the new table (null product = removal)
+    private boolean rebuilding;
+    private final List<Object[]> pending = new ArrayList<>();
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${product.similarity.rebuild-interval-ms:21600000}",
+            initialDelayString = "${product.similarity.rebuild-interval-ms:21600000}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            pending.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Table fresh;
+        try {
+            fresh = build(productRepository.findSearchableFields());
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                rebuilding = false;
+                pending.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Object[] change : pending) {
+                if (change[1] == null) {
+                    remove(fresh, (Long) change[0]);
+                } else {
+                    Product product = (Product) change[1];
+                    update(fresh, product.getId(), product.getName(), product.getDescription(), product.getCategory());
+                }
+            }
+            pending.clear();
+            rebuilding = false;
+            table = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Product similarity index built for " + fresh.liveCount + " products in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Ids of the products most similar to the given one, most similar first.
+     */
+    public List<Long> similar(Long productId, int limit) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = table.ordinals.get(productId);
+            if (ordinal == null) {
+                return List.of();
+            }
+            Neighbours neighbours = table.neighbours[ordinal];
+            List<Long> ids = new ArrayList<>(Math.min(limit, neighbours.ordinals().length));
+            for (int i = 0; i < neighbours.ordinals().length && ids.size() < limit; i++) {
+                ids.add(table.ids[neighbours.ordinals()[i]]);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            update(table, product.getId(), product.getName(), product.getDescription(), product.getCategory());
+            if (rebuilding) {
+                pending.add(new Object[]{product.getId(), product});
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            remove(table, productId);
+            if (rebuilding) {
+                pending.add(new Object[]{productId, null});
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Table build(List<Object[]> rows) {
+        Table fresh = new Table();
+        List<Map<String, Float>> frequencies = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Map<String, Float> tf = termFrequencies((String) row[1], (String) row[2], (String) row[3]);
+            frequencies.add(tf);
+            for (String term : tf.keySet()) {
+                fresh.termOrCreate(term).documentFrequency++;
+            }
+        }
+        if (rows.size() >= COMMON_TERM_MIN_CATALOG) {
+            for (TermPostings postings : fresh.terms) {
+                postings.common = postings.documentFrequency > rows.size() / COMMON_TERM_DIVISOR;
+            }
+        }
+        fresh.grow(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            int ordinal = fresh.ordinalOrCreate((Long) row[0]);
+            fresh.textHashes[ordinal] = Objects.hash(row[1], row[2], row[3]);
+            fresh.liveCount++;
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            Vector vector = vectorize(fresh, frequencies.get(i), rows.size());
+            fresh.vectors[i] = vector;
+            for (int t = 0; t < vector.terms().length; t++) {
+                fresh.terms.get(vector.terms()[t]).add(i, vector.weights()[t]);
+            }
+        }
+        ForkJoinPool.commonPool().invoke(new NeighbourTask(fresh, 0, fresh.size));
+        return fresh;
+    }
+
+    private void update(Table s, Long id, String name, String description, String category) {
+        int hash = Objects.hash(name, description, category);
+        Integer existing = s.ordinals.get(id);
+        if (existing != null && s.vectors[existing] != null && s.textHashes[existing] == hash) {
+            return;
+        }
+        int ordinal;
+        if (existing != null) {
+            ordinal = existing;
+            if (s.vectors[ordinal] != null) {
+                removePostings(s, ordinal);
+            } else {
+                s.liveCount++;
+            }
+        } else {
+            ordinal = s.ordinalOrCreate(id);
+            s.liveCount++;
+        }
+        s.textHashes[ordinal] = hash;
+        Map<String, Float> tf = termFrequencies(name, description, category);
+        for (String term : tf.keySet()) {
+            s.termOrCreate(term).documentFrequency++;
+        }
+        Vector vector = vectorize(s, tf, s.liveCount);
+        s.vectors[ordinal] = vector;
+        for (int t = 0; t < vector.terms().length; t++) {
+            s.terms.get(vector.terms()[t]).add(ordinal, vector.weights()[t]);
+        }
+
+        Scratch sc = scratch.get();
+        int touched = accumulate(s, ordinal, sc);
+        s.neighbours[ordinal] = topNeighbours(sc, touched, ordinal);
+
+        // Every other product either gains this one as a neighbour, keeps it with a new score or loses it
+        List<Integer> stale = new ArrayList<>();
+        for (int other = 0; other < s.size; other++) {
+            if (other == ordinal || s.vectors[other] == null) {
+                continue;
+            }
+            float score = (float) sc.scores[other];
+            Neighbours current = s.neighbours[other];
+            boolean listed = current.indexOf(ordinal) >= 0;
+            if (listed) {
+                boolean full = current.ordinals().length == TOP_N;
+                if (full && (score <= 0 || score < current.scores()[TOP_N - 1])) {
+                    // Dropped below the old cut-off, so a product outside the list may now belong in it
+                    stale.add(other);
+                } else if (score > 0) {
+                    s.neighbours[other] = current.without(ordinal).with(ordinal, score);
+                } else {
+                    s.neighbours[other] = current.without(ordinal);
+                }
+            } else if (score > 0 && current.accepts(score, ordinal)) {
+                s.neighbours[other] = current.with(ordinal, score);
+            }
+        }
+        sc.reset(touched);
+        for (int other : stale) {
+            recompute(s, other);
+        }
+    }
+
+    private void remove(Table s, Long id) {
+        Integer ordinal = s.ordinals.get(id);
+        if (ordinal == null || s.vectors[ordinal] == null) {
+            return;
+        }
+        removePostings(s, ordinal);
+        s.vectors[ordinal] = null;
+        s.neighbours[ordinal] = NO_NEIGHBOURS;
+        s.liveCount--;
+        for (int other = 0; other < s.size; other++) {
+            if (s.vectors[other] != null && s.neighbours[other].indexOf(ordinal) >= 0) {
+                recompute(s, other);
+            }
+        }
+    }
+
+    private void recompute(Table s, int ordinal) {
+        Scratch sc = scratch.get();
+        int touched = accumulate(s, ordinal, sc);
+        s.neighbours[ordinal] = topNeighbours(sc, touched, ordinal);
+        sc.reset(touched);
+    }
+
+    private static void removePostings(Table s, int ordinal) {
+        for (int term : s.vectors[ordinal].terms()) {
+            TermPostings postings = s.terms.get(term);
+            postings.remove(ordinal);
+            postings.documentFrequency--;
+        }
+    }
+
+    // Sparse dot products of one vector against every product sharing a term with it
+    private static int accumulate(Table s, int ordinal, Scratch sc) {
+        sc.ensureCapacity(s.size);
+        Vector vector = s.vectors[ordinal];
+        int touched = 0;
+        for (int t = 0; t < vector.terms().length; t++) {
+            TermPostings postings = s.terms.get(vector.terms()[t]);
+            if (postings.common) {
+                continue;
+            }
+            float weight = vector.weights()[t];
+            for (int p = 0; p < postings.size; p++) {
+                int other = postings.ordinals[p];
+                if (other == ordinal) {
+                    continue;
+                }
+                if (sc.scores[other] == 0) {
+                    sc.touched[touched++] = other;
+                }
+                sc.scores[other] += (double) weight * postings.weights[p];
+            }
+        }
+        return touched;
+    }
+
+    private static Neighbours topNeighbours(Scratch sc, int touched, int self) {
+        Neighbours top = NO_NEIGHBOURS;
+        for (int i = 0; i < touched; i++) {
+            int other = sc.touched[i];
+            float score = (float) sc.scores[other];
+            if (other != self && score > 0 && top.accepts(score, other)) {
+                top = top.with(other, score);
+            }
+        }
+        return top;
+    }
+
+    private static Map<String, Float> termFrequencies(String name, String description, String category) {
+        Map<String, Float> tf = new HashMap<>();
+        for (String token : ProductSearchIndex.tokenize(name)) {
+            tf.merge(token, NAME_WEIGHT, Float::sum);
+        }
+        for (String token : ProductSearchIndex.tokenize(category)) {
+            tf.merge(token, CATEGORY_WEIGHT, Float::sum);
+        }
+        for (String token : ProductSearchIndex.tokenize(description)) {
+            tf.merge(token, DESCRIPTION_WEIGHT, Float::sum);
+        }
+        return tf;
+    }
+
+    // Sublinear tf times smoothed idf, L2-normalised so a dot product is the cosine
+    private static Vector vectorize(Table s, Map<String, Float> tf, int documentCount) {
+        int[] terms = new int[tf.size()];
+        float[] weights = new float[tf.size()];
+        double norm = 0;
+        int i = 0;
+        for (Map.Entry<String, Float> entry : tf.entrySet()) {
+            int term = s.termIds.get(entry.getKey());
+            double idf = Math.log(1 + (double) documentCount / Math.max(1, s.terms.get(term).documentFrequency));
+            double weight = (1 + Math.log(entry.getValue())) * idf;
+            terms[i] = term;
+            weights[i] = (float) weight;
+            norm += weight * weight;
+            i++;
+        }
+        if (norm > 0) {
+            float inverse = (float) (1 / Math.sqrt(norm));
+            for (int w = 0; w < weights.length; w++) {
+                weights[w] *= inverse;
+            }
+        }
+        return new Vector(terms, weights);
+    }
+
+    private final class NeighbourTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Table s;
+        private final int from;
+        private final int to;
+
+        NeighbourTask(Table s, int from, int to) {
+            this.s = s;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= FORK_THRESHOLD) {
+                Scratch sc = scratch.get();
+                for (int ordinal = from; ordinal < to; ordinal++) {
+                    if (s.vectors[ordinal] != null) {
+                        int touched = accumulate(s, ordinal, sc);
+                        s.neighbours[ordinal] = topNeighbours(sc, touched, ordinal);
+                        sc.reset(touched);
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new NeighbourTask(s, from, middle), new NeighbourTask(s, middle, to));
+        }
+    }
+
+    private static final class Table {
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        private long[] ids = new long[0];
+        private Vector[] vectors = new Vector[0];
+        private int[] textHashes = new int[0];
+        private Neighbours[] neighbours = new Neighbours[0];
+        private int size;
+        private int liveCount;
+        private final Map<String, Integer> termIds = new HashMap<>();
+        private final List<TermPostings> terms = new ArrayList<>();
+
+        int ordinalOrCreate(long id) {
+            Integer existing = ordinals.get(id);
+            if (existing != null) {
+                return existing;
+            }
+            grow(size + 1);
+            int ordinal = size++;
+            ids[ordinal] = id;
+            neighbours[ordinal] = NO_NEIGHBOURS;
+            ordinals.put(id, ordinal);
+            return ordinal;
+        }
+
+        void grow(int capacity) {
+            if (ids.length >= capacity) {
+                return;
+            }
+            int newLength = Math.max(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, newLength);
+            vectors = Arrays.copyOf(vectors, newLength);
+            textHashes = Arrays.copyOf(textHashes, newLength);
+            neighbours = Arrays.copyOf(neighbours, newLength);
+        }
+
+        TermPostings termOrCreate(String term) {
+            Integer id = termIds.get(term);
+            if (id == null) {
+                id = terms.size();
+                termIds.put(term, id);
+                terms.add(new TermPostings());
+            }
+            return terms.get(id);
+        }
+    }
+
+    private static final class TermPostings {
+        private int[] ordinals = new int[4];
+        private float[] weights = new float[4];
+        private int size;
+        private int documentFrequency;
+        // Decided at full build only, so incremental updates never see a term flip in or out
+        private boolean common;
+
+        void add(int ordinal, float weight) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            ordinals[size] = ordinal;
+            weights[size] = weight;
+            size++;
+        }
+
+        void remove(int ordinal) {
+            for (int i = 0; i < size; i++) {
+                if (ordinals[i] == ordinal) {
+                    size--;
+                    ordinals[i] = ordinals[size];
+                    weights[i] = weights[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    private record Vector(int[] terms, float[] weights) {
+    }
+
+    // At most TOP_N neighbours, best first (ties by lower ordinal); replaced, never mutated
+    private record Neighbours(int[] ordinals, float[] scores) {
+
+        int indexOf(int ordinal) {
+            for (int i = 0; i < ordinals.length; i++) {
+                if (ordinals[i] == ordinal) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        boolean accepts(float score, int ordinal) {
+            if (ordinals.length < TOP_N) {
+                return true;
+            }
+            int last = ordinals.length - 1;
+            return score > scores[last] || (score == scores[last] && ordinal < ordinals[last]);
+        }
+
+        Neighbours with(int ordinal, float score) {
+            int position = 0;
+            while (position < ordinals.length
+                    && (scores[position] > score || (scores[position] == score && ordinals[position] < ordinal))) {
+                position++;
+            }
+            int length = Math.min(TOP_N, ordinals.length + 1);
+            int[] newOrdinals = new int[length];
+            float[] newScores = new float[length];
+            System.arraycopy(ordinals, 0, newOrdinals, 0, Math.min(position, length));
+            System.arraycopy(scores, 0, newScores, 0, Math.min(position, length));
+            if (position < length) {
+                newOrdinals[position] = ordinal;
+                newScores[position] = score;
+                System.arraycopy(ordinals, position, newOrdinals, position + 1, length - position - 1);
+                System.arraycopy(scores, position, newScores, position + 1, length - position - 1);
+            }
+            return new Neighbours(newOrdinals, newScores);
+        }
+
+        Neighbours without(int ordinal) {
+            int index = indexOf(ordinal);
+            if (index < 0) {
+                return this;
+            }
+            int[] newOrdinals = new int[ordinals.length - 1];
+            float[] newScores = new float[scores.length - 1];
+            System.arraycopy(ordinals, 0, newOrdinals, 0, index);
+            System.arraycopy(scores, 0, newScores, 0, index);
+            System.arraycopy(ordinals, index + 1, newOrdinals, index, ordinals.length - index - 1);
+            System.arraycopy(scores, index + 1, newScores, index, scores.length - index - 1);
+            return new Neighbours(newOrdinals, newScores);
+        }
+    }
+
+    private static final class Scratch {
+        // Summed in double so a pair scores the same whichever side it is computed from
+        private double[] scores = new double[0];
+        private int[] touched = new int[0];
+
+        void ensureCapacity(int size) {
+            if (scores.length < size) {
+                scores = new double[Math.max(size, scores.length * 2)];
+                touched = new int[scores.length];
+            }
+        }
+
+        void reset(int touchedCount) {
+            for (int i = 0; i < touchedCount; i++) {
+                scores[touched[i]] = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.buygreen.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Set-based stock decrements for checkout.
+ * Each line is a conditional UPDATE that only succeeds while enough stock is left, so
+ * two concurrent checkouts can never both take the last unit; the database row lock
+ * does the check-and-set instead of a read in Java followed by a save. Units held for
+ * other checkouts (reserved_quantity) are not available; units the buyer holds are
+ * consumed from their reservation in the same statement.
+ */
+@Component
+public class ProductStockUpdater {
+
+    private static final String DECREMENT =
+            "UPDATE products SET stock_quantity = stock_quantity - ?, reserved_quantity = reserved_quantity - ?, "
+                    + "updated_at = ?, version = version + 1 WHERE id = ? AND stock_quantity - reserved_quantity >= ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Takes quantity units of each product, in ascending id order so concurrent orders lock
+     * rows in the same order and cannot deadlock. Must run inside the caller's transaction:
+     * on any shortfall it throws and the rollback undoes the lines already applied.
+     * reserved holds the units per product the buyer has already reserved (claimed by the
+     * caller in the same transaction). Returns the new stock level (row version and updated_at
+     * included) per product.
+     */
+    public Map<Long, StockLevel> decrement(SortedMap<Long, Integer> quantities, Map<Long, Integer> reserved) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> lines = new ArrayList<>(quantities.size());
+        quantities.forEach((id, quantity) -> {
+            int held = Math.min(reserved.getOrDefault(id, 0), quantity);
+            lines.add(new Object[]{quantity, held, now, id, quantity - held});
+        });
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT, lines);
+
+        List<Long> ids = new ArrayList<>(quantities.keySet());
+        List<Long> shortfalls = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                shortfalls.add(ids.get(i));
+            }
+        }
+        if (!shortfalls.isEmpty()) {
+            throw shortfall(shortfalls.get(0));
+        }
+        return stockLevels(ids);
+    }
+
+    private Map<Long, StockLevel> stockLevels(Collection<Long> ids) {
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        Map<Long, StockLevel> levels = new HashMap<>();
+        jdbcTemplate.query("SELECT id, stock_quantity, version, updated_at FROM products WHERE id IN ("
+                        + placeholders + ")",
+                rs -> {
+                    levels.put(rs.getLong(1), new StockLevel(rs.getInt(2), rs.getLong(3),
+                            rs.getTimestamp(4).toLocalDateTime()));
+                }, ids.toArray());
+        return levels;
+    }
+
+    public record StockLevel(int stockQuantity, long version, LocalDateTime updatedAt) {
+    }
+
+    // Same messages the per-item check used to give
+    private IllegalArgumentException shortfall(Long productId) {
+        List<IllegalArgumentException> found = jdbcTemplate.query(
+                "SELECT name, stock_quantity - reserved_quantity FROM products WHERE id = ?",
+                (rs, row) -> new IllegalArgumentException("Not enough stock for product " + rs.getString(1)
+                        + ". Only " + Math.max(rs.getInt(2), 0) + " available."),
+                productId);
+        return found.isEmpty()
+                ? new IllegalArgumentException("Product not found with ID: " + productId)
+                : found.get(0);
+    }
+}
@@ -0,0 +1,282 @@
+package com.buygreen.service;
+
+import com.buygreen.model.Product;
+import com.buygreen.repository.OrderItemRepository;
+import com.buygreen.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * Prefix trie for typeahead over normalized product names and categories.
+ * Every node keeps its own top-K products by popularity (units sold), so a
+ * lookup is a walk down the prefix followed by a copy of at most K entries.
+ * A name is also indexed from each word start, so "tooth" finds "Bamboo Toothbrush".
+ */
+@Component
+public class ProductSuggestIndex {
+
+    private static final Logger logger = Logger.getLogger(ProductSuggestIndex.class.getName());
+
+    public static final int TOP_K = 10;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root = new Node();
+    private final Map<Long, Indexed> byProduct = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<Long, Long> sold = new HashMap<>();
+        for (Object[] row : orderItemRepository.sumQuantityByProduct()) {
+            sold.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        List<Object[]> rows = productRepository.findSearchableFields();
+        lock.writeLock().lock();
+        try {
+            root = new Node();
+            byProduct.clear();
+            for (Object[] row : rows) {
+                Long id = (Long) row[0];
+                insert(id, (String) row[1], (String) row[3], sold.getOrDefault(id, 0L));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Product suggest index built with " + rows.size() + " products in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            int count = Math.min(limit, node.top.length);
+            List<Suggestion> suggestions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                suggestions.add(new Suggestion(node.top[i].id, node.top[i].name));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Indexed previous = remove(product.getId());
+            long popularity = previous != null ? previous.candidate.popularity : 0;
+            insert(product.getId(), product.getName(), product.getCategory(), popularity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void recordSale(Long productId, int quantity) {
+        lock.writeLock().lock();
+        try {
+            Indexed indexed = remove(productId);
+            if (indexed != null) {
+                insert(productId, indexed.candidate.name, indexed.category,
+                        indexed.candidate.popularity + quantity);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(Long productId) {
+        lock.writeLock().lock();
+        try {
+            remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Lower-case, strip accents and punctuation, collapse whitespace
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{N}]+", " ");
+        return folded.trim();
+    }
+
+    private void insert(Long id, String name, String category, long popularity) {
+        Candidate candidate = new Candidate(id, name, popularity);
+        Set<String> keys = keysFor(name, category);
+        for (String key : keys) {
+            Node node = root;
+            node.offer(candidate);
+            for (int i = 0; i < key.length(); i++) {
+                node = node.childOrCreate(key.charAt(i));
+                node.offer(candidate);
+            }
+            node.terminals = append(node.terminals, candidate);
+        }
+        byProduct.put(id, new Indexed(candidate, category, keys.toArray(new String[0])));
+    }
+
+    private Indexed remove(Long id) {
+        Indexed indexed = byProduct.remove(id);
+        if (indexed == null) {
+            return null;
+        }
+        for (String key : indexed.keys) {
+            Node[] path = new Node[key.length() + 1];
+            path[0] = root;
+            for (int i = 0; i < key.length(); i++) {
+                path[i + 1] = path[i].child(key.charAt(i));
+            }
+            Node leaf = path[key.length()];
+            leaf.terminals = without(leaf.terminals, id);
+            // Children are settled before their parent, so each top-K can be rebuilt from them
+            for (int i = key.length(); i >= 0; i--) {
+                path[i].recomputeTop();
+            }
+        }
+        return indexed;
+    }
+
+    private static Set<String> keysFor(String name, String category) {
+        Set<String> keys = new LinkedHashSet<>();
+        String normalizedName = normalize(name);
+        if (!normalizedName.isEmpty()) {
+            keys.add(normalizedName);
+            for (int i = normalizedName.indexOf(' '); i >= 0; i = normalizedName.indexOf(' ', i + 1)) {
+                keys.add(normalizedName.substring(i + 1));
+            }
+        }
+        String normalizedCategory = normalize(category);
+        if (!normalizedCategory.isEmpty()) {
+            keys.add(normalizedCategory);
+        }
+        return keys;
+    }
+
+    private static Candidate[] append(Candidate[] array, Candidate candidate) {
+        Candidate[] grown = Arrays.copyOf(array, array.length + 1);
+        grown[array.length] = candidate;
+        return grown;
+    }
+
+    private static Candidate[] without(Candidate[] array, long id) {
+        return Arrays.stream(array).filter(c -> c.id != id).toArray(Candidate[]::new);
+    }
+
+    private static final Candidate[] NONE = new Candidate[0];
+
+    private static final class Node {
+        // Sorted child labels with parallel child array; far smaller than a map per node
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private Candidate[] terminals = NONE;
+        private Candidate[] top = NONE;
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node childOrCreate(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newLabels[insertAt] = c;
+            newChildren[insertAt] = new Node();
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            labels = newLabels;
+            children = newChildren;
+            return newChildren[insertAt];
+        }
+
+        void offer(Candidate candidate) {
+            top = merge(top, new Candidate[]{candidate});
+        }
+
+        void recomputeTop() {
+            Candidate[] merged = merge(NONE, terminals);
+            for (Node child : children) {
+                merged = merge(merged, child.top);
+            }
+            top = merged;
+        }
+
+        // Merges two candidate lists into one sorted, de-duplicated list of at most TOP_K entries
+        private static Candidate[] merge(Candidate[] current, Candidate[] incoming) {
+            List<Candidate> all = new ArrayList<>(current.length + incoming.length);
+            Set<Long> seen = new HashSet<>();
+            for (Candidate c : incoming) {
+                if (seen.add(c.id)) {
+                    all.add(c);
+                }
+            }
+            for (Candidate c : current) {
+                if (seen.add(c.id)) {
+                    all.add(c);
+                }
+            }
+            all.sort(Candidate::compareTo);
+            return all.subList(0, Math.min(TOP_K, all.size())).toArray(Candidate[]::new);
+        }
+    }
+
+    private record Candidate(long id, String name, long popularity) implements Comparable<Candidate> {
+        @Override
+        public int compareTo(Candidate other) {
+            int byPopularity = Long.compare(other.popularity, popularity);
+            return byPopularity != 0 ? byPopularity : Long.compare(id, other.id);
+        }
+    }
+
+    private record Indexed(Candidate candidate, String category, String[] keys) {
+    }
+
+    public record Suggestion(long id, String name) {
+    }
+}
@@ -0,0 +1,358 @@
+package com.buygreen.service;
+
+import com.buygreen.model.Cart;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Time-boxed stock holds for checkouts. Starting checkout reserves the customer's cart:
+ * products.reserved_quantity goes up by a conditional UPDATE (only while stock minus
+ * existing holds covers it) and one stock_reservations row per product records the hold.
+ * placeOrder claims the rows and turns them into the real decrement; otherwise the sweeper
+ * releases them once they expire. Available-to-sell is stock_quantity - reserved_quantity,
+ * read straight off the product row.
+ * <p>
+ * A customer has at most one set of holds, all expiring together; reserving again replaces
+ * it. Expiry times are kept in an in-memory index (loaded at startup), so the sweeper only
+ * touches customers that are due; a slower database sweep picks up holds created by other
+ * instances.
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger logger = Logger.getLogger(StockReservationService.class.getName());
+
+    private static final String HOLD =
+            "UPDATE products SET reserved_quantity = reserved_quantity + ? "
+                    + "WHERE id = ? AND stock_quantity - reserved_quantity >= ?";
+
+    private static final String UNHOLD =
+            "UPDATE products SET reserved_quantity = GREATEST(reserved_quantity - ?, 0) WHERE id = ?";
+
+    private static final String INSERT =
+            "INSERT INTO stock_reservations (customer_id, product_id, quantity, created_at, expires_at) "
+                    + "VALUES (?, ?, ?, ?, ?)";
+
+    private static final String DELETE = "DELETE FROM stock_reservations WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionRetry transactionRetry;
+
+    @Value("${stock.reservation.ttl-minutes:15}")
+    private long ttlMinutes;
+
+    @Value("${stock.reservation.sweep-batch-size:200}")
+    private int sweepBatchSize;
+
+    // customerId -> expiry (epoch millis) of their holds, plus the same pairs ordered by expiry
+    private final Map<Long, Long> expiryByCustomer = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Expiry> expiries = new ConcurrentSkipListSet<>();
+
+    private final AtomicLong reserved = new AtomicLong();
+    private final AtomicLong converted = new AtomicLong();
+    private final AtomicLong released = new AtomicLong();
+
+    @PostConstruct
+    void loadIndex() {
+        jdbcTemplate.query("SELECT customer_id, MIN(expires_at) FROM stock_reservations GROUP BY customer_id",
+                rs -> {
+                    index(rs.getLong(1), rs.getTimestamp(2).getTime());
+                });
+    }
+
+    /**
+     * Holds the customer's cart for the reservation TTL, replacing any earlier holds.
+     * All or nothing: if any line is short, nothing is held and the shortfall is thrown.
+     */
+    public LocalDateTime reserveCart(Long customerId, List<Cart> cart) {
+        if (cart.isEmpty()) {
+            throw new IllegalArgumentException("Cart is empty");
+        }
+        SortedMap<Long, Integer> units = new TreeMap<>();
+        cart.forEach(line -> units.merge(line.getProductId(), line.getQuantity(), Integer::sum));
+
+        LocalDateTime expiresAt = transactionRetry.execute("reserveStock", () -> {
+            release(claim(customerId, false));
+
+            LocalDateTime now = LocalDateTime.now();
+            List<Object[]> holds = new ArrayList<>(units.size());
+            units.forEach((productId, quantity) -> holds.add(new Object[]{quantity, productId, quantity}));
+            int[] updated = jdbcTemplate.batchUpdate(HOLD, holds);
+            List<Long> ids = new ArrayList<>(units.keySet());
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    throw shortfall(ids.get(i));
+                }
+            }
+
+            LocalDateTime expiry = now.plusMinutes(ttlMinutes);
+            List<Object[]> rows = new ArrayList<>(units.size());
+            units.forEach((productId, quantity) -> rows.add(new Object[]{customerId, productId, quantity,
+                    Timestamp.valueOf(now), Timestamp.valueOf(expiry)}));
+            jdbcTemplate.batchUpdate(INSERT, rows);
+            return expiry;
+        });
+        index(customerId, Timestamp.valueOf(expiresAt).getTime());
+        reserved.incrementAndGet();
+        return expiresAt;
+    }
+
+    /**
+     * Claims the customer's holds for an order being placed in the caller's transaction and
+     * returns the held units per product, for the stock decrement to consume. Holds on
+     * products the order does not include are released.
+     */
+    public Map<Long, Integer> convert(Long customerId, Map<Long, Integer> ordered) {
+        if (!expiryByCustomer.containsKey(customerId) && !hasHolds(customerId)) {
+            return Map.of();
+        }
+        Map<Long, Integer> held = claim(customerId, false);
+        Map<Long, Integer> unused = new HashMap<>();
+        Map<Long, Integer> used = new HashMap<>();
+        held.forEach((productId, quantity) -> {
+            int take = Math.min(quantity, ordered.getOrDefault(productId, 0));
+            if (take > 0) {
+                used.put(productId, take);
+            }
+            if (quantity > take) {
+                unused.put(productId, quantity - take);
+            }
+        });
+        release(unused);
+        if (!held.isEmpty()) {
+            afterCommit(() -> {
+                unindex(customerId);
+                converted.incrementAndGet();
+            });
+        }
+        return used;
+    }
+
+    // Gives all of the customer's holds back at once, e.g. when their payment could not be started
+    public void releaseCart(Long customerId) {
+        Map<Long, Integer> units = transactionRetry.execute("releaseReservations", () -> {
+            Map<Long, Integer> claimed = claim(customerId, false);
+            release(claimed);
+            return claimed;
+        });
+        unindex(customerId);
+        if (!units.isEmpty()) {
+            released.incrementAndGet();
+        }
+    }
+
+    private boolean hasHolds(Long customerId) {
+        return !jdbcTemplate.queryForList("SELECT id FROM stock_reservations WHERE customer_id = ? LIMIT 1",
+                Long.class, customerId).isEmpty();
+    }
+
+    /**
+     * Deletes the customer's reservation rows (only the expired ones if expiredOnly) and
+     * returns the units per product whose rows this call actually deleted. A row deleted
+     * concurrently by someone else (sweeper, order) is not counted, so a hold is only ever
+     * taken back once.
+     */
+    private Map<Long, Integer> claim(Long customerId, boolean expiredOnly) {
+        String sql = "SELECT id, product_id, quantity FROM stock_reservations WHERE customer_id = ?"
+                + (expiredOnly ? " AND expires_at <= ?" : "");
+        Object[] args = expiredOnly
+                ? new Object[]{customerId, Timestamp.valueOf(LocalDateTime.now())}
+                : new Object[]{customerId};
+        List<long[]> rows = jdbcTemplate.query(sql, (rs, row) -> new long[]{rs.getLong(1), rs.getLong(2),
+                rs.getInt(3)}, args);
+        if (rows.isEmpty()) {
+            return Map.of();
+        }
+        List<Object[]> deletes = new ArrayList<>(rows.size());
+        rows.forEach(row -> deletes.add(new Object[]{row[0]}));
+        int[] deleted = jdbcTemplate.batchUpdate(DELETE, deletes);
+        Map<Long, Integer> units = new TreeMap<>();
+        for (int i = 0; i < deleted.length; i++) {
+            if (deleted[i] > 0) {
+                units.merge(rows.get(i)[1], (int) rows.get(i)[2], Integer::sum);
+            }
+        }
+        return units;
+    }
+
+    // Gives held units back, one batch in ascending product id order
+    private void release(Map<Long, Integer> units) {
+        if (units.isEmpty()) {
+            return;
+        }
+        List<Object[]> lines = new ArrayList<>(units.size());
+        new TreeMap<>(units).forEach((productId, quantity) -> lines.add(new Object[]{quantity, productId}));
+        jdbcTemplate.batchUpdate(UNHOLD, lines);
+    }
+
+    // Releases the holds of customers whose expiry has passed, a batch of customers per transaction
+    @Scheduled(fixedDelayString = "${stock.reservation.sweep-interval-ms:5000}")
+    public void releaseExpired() {
+        long now = System.currentTimeMillis();
+        while (true) {
+            List<Long> due = new ArrayList<>();
+            for (Expiry expiry : expiries) {
+                if (expiry.at() > now || due.size() >= sweepBatchSize) {
+                    break;
+                }
+                due.add(expiry.customerId());
+            }
+            if (due.isEmpty()) {
+                return;
+            }
+            releaseCustomers(due);
+            if (due.size() < sweepBatchSize) {
+                return;
+            }
+        }
+    }
+
+    // Holds left behind by another instance (or missed by the index) are found by expires_at
+    @Scheduled(fixedDelayString = "${stock.reservation.orphan-sweep-interval-ms:60000}",
+            initialDelayString = "${stock.reservation.orphan-sweep-interval-ms:60000}")
+    public void releaseOrphans() {
+        List<Long> due = jdbcTemplate.queryForList(
+                "SELECT DISTINCT customer_id FROM stock_reservations WHERE expires_at <= ? LIMIT ?", Long.class,
+                Timestamp.valueOf(LocalDateTime.now()), sweepBatchSize);
+        if (!due.isEmpty()) {
+            releaseCustomers(due);
+        }
+    }
+
+    private void releaseCustomers(List<Long> customerIds) {
+        Map<Long, Integer> units = transactionRetry.execute("releaseReservations", () -> {
+            Map<Long, Integer> total = new TreeMap<>();
+            for (Long customerId : customerIds) {
+                claim(customerId, true).forEach((productId, quantity) -> total.merge(productId, quantity, Integer::sum));
+            }
+            release(total);
+            return total;
+        });
+        customerIds.forEach(this::unindexIfExpired);
+        if (!units.isEmpty()) {
+            released.addAndGet(customerIds.size());
+            logger.info("Released expired stock holds of " + customerIds.size() + " customers on "
+                    + units.size() + " products");
+        }
+    }
+
+    /**
+     * Units that can still be sold per product: stock minus every open hold. One IN query
+     * on the product rows; reservations are never scanned.
+     */
+    public Map<Long, Integer> available(Collection<Long> productIds) {
+        if (productIds.size() > ProductServiceImpl.MAX_BATCH_IDS) {
+            throw new IllegalArgumentException("At most " + ProductServiceImpl.MAX_BATCH_IDS
+                    + " ids can be requested at once");
+        }
+        Map<Long, Integer> available = new LinkedHashMap<>();
+        if (productIds.isEmpty()) {
+            return available;
+        }
+        String placeholders = String.join(",", Collections.nCopies(productIds.size(), "?"));
+        jdbcTemplate.query("SELECT id, stock_quantity - reserved_quantity FROM products WHERE id IN ("
+                + placeholders + ")", rs -> {
+            available.put(rs.getLong(1), Math.max(rs.getInt(2), 0));
+        }, productIds.toArray());
+        return available;
+    }
+
+    /**
+     * Whether the customer holds units from a reservation made through this instance; read
+     * from the in-memory expiry index, never the table.
+     */
+    public boolean isHolding(Long customerId) {
+        return expiryByCustomer.containsKey(customerId);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("customersHolding", expiryByCustomer.size());
+        Expiry next = expiries.isEmpty() ? null : expiries.first();
+        stats.put("nextExpiryInMs", next == null ? null : Math.max(next.at() - System.currentTimeMillis(), 0));
+        stats.put("reserved", reserved.get());
+        stats.put("converted", converted.get());
+        stats.put("releasedCustomers", released.get());
+        return stats;
+    }
+
+    private synchronized void index(Long customerId, long at) {
+        Long previous = expiryByCustomer.put(customerId, at);
+        if (previous != null) {
+            expiries.remove(new Expiry(previous, customerId));
+        }
+        expiries.add(new Expiry(at, customerId));
+    }
+
+    private synchronized void unindex(Long customerId) {
+        Long previous = expiryByCustomer.remove(customerId);
+        if (previous != null) {
+            expiries.remove(new Expiry(previous, customerId));
+        }
+    }
+
+    // A customer who reserved again while being swept keeps their new entry
+    private synchronized void unindexIfExpired(Long customerId) {
+        Long at = expiryByCustomer.get(customerId);
+        if (at != null && at <= System.currentTimeMillis()) {
+            unindex(customerId);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private IllegalArgumentException shortfall(Long productId) {
+        List<IllegalArgumentException> found = jdbcTemplate.query(
+                "SELECT name, stock_quantity - reserved_quantity FROM products WHERE id = ?",
+                (rs, row) -> new IllegalArgumentException("Not enough stock for product " + rs.getString(1)
+                        + ". Only " + Math.max(rs.getInt(2), 0) + " available."),
+                productId);
+        return found.isEmpty()
+                ? new IllegalArgumentException("Product not found with ID: " + productId)
+                : found.get(0);
+    }
+
+    private record Expiry(long at, long customerId) implements Comparable<Expiry> {
+        @Override
+        public int compareTo(Expiry other) {
+            int byTime = Long.compare(at, other.at);
+            return byTime != 0 ? byTime : Long.compare(customerId, other.customerId);
+        }
+    }
+}
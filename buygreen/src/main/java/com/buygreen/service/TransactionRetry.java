@@ -0,0 +1,99 @@
+package com.buygreen.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Runs a unit of work in its own transaction and re-runs it when it loses a write
+ * conflict (stale @Version, deadlock, lock wait timeout), up to a bounded number of
+ * attempts with exponential backoff and full jitter so colliding requests spread out
+ * instead of colliding again. Work must be safe to repeat: everything it wrote in a
+ * failed attempt has been rolled back, but side effects outside the database have not.
+ * Inside an existing transaction the work runs once; the conflict belongs to the
+ * outer transaction, which is the one that can usefully be retried.
+ */
+@Component
+public class TransactionRetry {
+
+    private static final Logger logger = Logger.getLogger(TransactionRetry.class.getName());
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${transaction.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${transaction.retry.base-delay-ms:20}")
+    private long baseDelayMillis;
+
+    @Value("${transaction.retry.max-delay-ms:500}")
+    private long maxDelayMillis;
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    public <T> T execute(String operation, Supplier<T> work) {
+        Counters stats = counters.computeIfAbsent(operation, op -> new Counters());
+        stats.calls.incrementAndGet();
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return tx.execute(status -> work.get());
+            } catch (ConcurrencyFailureException e) {
+                stats.conflicts.incrementAndGet();
+                if (attempt >= maxAttempts) {
+                    stats.exhausted.incrementAndGet();
+                    logger.warning(operation + " still conflicting after " + attempt + " attempts: " + e.getMessage());
+                    throw e;
+                }
+                stats.retries.incrementAndGet();
+                backOff(attempt);
+            }
+        }
+    }
+
+    private void backOff(int attempt) {
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", e);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxAttempts", maxAttempts);
+        Map<String, Object> operations = new LinkedHashMap<>();
+        counters.forEach((operation, c) -> operations.put(operation, Map.of(
+                "calls", c.calls.get(),
+                "conflicts", c.conflicts.get(),
+                "retries", c.retries.get(),
+                "exhausted", c.exhausted.get())));
+        stats.put("operations", operations);
+        return stats;
+    }
+
+    private static final class Counters {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong conflicts = new AtomicLong();
+        private final AtomicLong retries = new AtomicLong();
+        private final AtomicLong exhausted = new AtomicLong();
+    }
+}
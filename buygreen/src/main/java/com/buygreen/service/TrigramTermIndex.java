@@ -0,0 +1,249 @@
+package com.buygreen.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trigram index over the search term dictionary, used to find terms within a small
+ * edit distance of a misspelled query token. Candidates must share enough trigrams
+ * with the token (q-gram lemma) and are then verified with a banded edit distance
+ * that counts an adjacent transposition ("bottel") as a single edit.
+ * Not thread-safe: ProductSearchIndex calls it under its own lock. Lookups count shared
+ * trigrams in a per-thread map sized to the candidates of one query, not to the dictionary.
+ */
+final class TrigramTermIndex {
+
+    private static final char PAD = '\u0001';
+
+    // Removed terms are compacted away once they are this share of the dictionary (and at least MIN_DEAD)
+    private static final int COMPACT_DIVISOR = 4;
+    private static final int MIN_DEAD = 256;
+    // A thread's count map is dropped rather than cleared after a query with more candidates than this
+    private static final int RETAINED_CANDIDATES = 4096;
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private String[] terms = new String[1024];
+    private int termCount;
+    // Removed terms keep their id (and trigram postings) until the next compaction, but never match
+    private final BitSet live = new BitSet();
+    private int dead;
+    private final Map<Long, TermList> grams = new HashMap<>();
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    void clear() {
+        termIds.clear();
+        terms = new String[1024];
+        termCount = 0;
+        live.clear();
+        dead = 0;
+        grams.clear();
+    }
+
+    void add(String term) {
+        Integer existing = termIds.get(term);
+        if (existing != null) {
+            if (!live.get(existing)) {
+                live.set(existing);
+                dead--;
+            }
+            return;
+        }
+        int id = termCount++;
+        if (id >= terms.length) {
+            terms = Arrays.copyOf(terms, terms.length * 2);
+        }
+        terms[id] = term;
+        termIds.put(term, id);
+        live.set(id);
+        for (long gram : distinctGrams(term)) {
+            grams.computeIfAbsent(gram, g -> new TermList()).add(id);
+        }
+    }
+
+    void remove(String term) {
+        Integer id = termIds.get(term);
+        if (id != null && live.get(id)) {
+            live.clear(id);
+            dead++;
+            if (dead >= MIN_DEAD && dead * COMPACT_DIVISOR >= termCount) {
+                compact();
+            }
+        }
+    }
+
+    // Re-adds the live terms under fresh ids, dropping dead terms and their postings
+    private void compact() {
+        String[] old = terms;
+        int oldCount = termCount;
+        BitSet wasLive = (BitSet) live.clone();
+        clear();
+        for (int id = wasLive.nextSetBit(0); id >= 0 && id < oldCount; id = wasLive.nextSetBit(id + 1)) {
+            add(old[id]);
+        }
+    }
+
+    int size() {
+        return termCount - dead;
+    }
+
+    // Ids handed out, dead ones included; bounded by compaction
+    int capacityUsed() {
+        return termCount;
+    }
+
+    /**
+     * Returns live terms within maxDistance edits of the token, closest first, at most limit of them.
+     * An edit touches at most four trigrams, and only terms sharing a trigram with the token are
+     * seen, so the token needs more than 4 * maxDistance distinct trigrams for a complete result.
+     */
+    List<Match> match(String token, int maxDistance, int limit) {
+        long[] queryGrams = distinctGrams(token);
+        int required = queryGrams.length - 4 * maxDistance;
+        if (required <= 0) {
+            return List.of();
+        }
+        Scratch s = scratch.get();
+        LongIntHashMap counts = s.counts;
+        for (long gram : queryGrams) {
+            TermList list = grams.get(gram);
+            if (list == null) {
+                continue;
+            }
+            for (int i = 0; i < list.size; i++) {
+                counts.add(list.ids[i], 1);
+            }
+        }
+
+        List<Match> matches = new ArrayList<>();
+        counts.forEach((key, shared) -> {
+            int id = (int) key;
+            if (shared < required || !live.get(id)) {
+                return;
+            }
+            String term = terms[id];
+            if (Math.abs(term.length() - token.length()) > maxDistance || term.equals(token)) {
+                return;
+            }
+            int distance = boundedDistance(token, term, maxDistance, s);
+            if (distance <= maxDistance) {
+                matches.add(new Match(term, distance));
+            }
+        });
+        s.resetCounts();
+        matches.sort((a, b) -> a.distance() != b.distance()
+                ? Integer.compare(a.distance(), b.distance())
+                : a.term().compareTo(b.term()));
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    // Optimal string alignment distance limited to a diagonal band of width 2k+1;
+    // returns k+1 as soon as the bound is exceeded
+    private static int boundedDistance(String a, String b, int k, Scratch s) {
+        int n = a.length();
+        int m = b.length();
+        s.ensureRows(m + 1);
+        int[] beforePrevious = s.beforePrevious;
+        int[] previous = s.previous;
+        int[] current = s.current;
+        int outside = k + 1;
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j <= k ? j : outside;
+        }
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - k);
+            int to = Math.min(m, i + k);
+            current[0] = i <= k ? i : outside;
+            if (from > 1) {
+                current[from - 1] = outside;
+            }
+            int rowMin = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1);
+                }
+                current[j] = Math.min(value, outside);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (to < m) {
+                current[to + 1] = outside;
+            }
+            if (rowMin > k) {
+                return outside;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[m];
+    }
+
+    // Trigrams of the padded term, each packed into a long (three 16-bit chars)
+    private static long[] distinctGrams(String term) {
+        int length = term.length() + 2;
+        long[] result = new long[Math.max(0, length - 2)];
+        int count = 0;
+        for (int i = 0; i + 3 <= length; i++) {
+            long gram = ((long) charAt(term, i - 1) << 32) | ((long) charAt(term, i) << 16) | charAt(term, i + 1);
+            boolean seen = false;
+            for (int j = 0; j < count && !seen; j++) {
+                seen = result[j] == gram;
+            }
+            if (!seen) {
+                result[count++] = gram;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private static char charAt(String term, int index) {
+        return index < 0 || index >= term.length() ? PAD : term.charAt(index);
+    }
+
+    record Match(String term, int distance) {
+    }
+
+    private static final class TermList {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+
+    private static final class Scratch {
+        // term id -> trigrams shared with the query
+        private LongIntHashMap counts = new LongIntHashMap(64);
+        private int[] beforePrevious = new int[32];
+        private int[] previous = new int[32];
+        private int[] current = new int[32];
+
+        void resetCounts() {
+            if (counts.size() > RETAINED_CANDIDATES) {
+                counts = new LongIntHashMap(64);
+            } else {
+                counts.clear();
+            }
+        }
+
+        void ensureRows(int size) {
+            if (previous.length < size) {
+                beforePrevious = new int[size * 2];
+                previous = new int[size * 2];
+                current = new int[size * 2];
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.buygreen.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Runs against a bare H2 database holding a cart table from before the key existed
+class CartKeyMigrationTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:cart-key-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE cart (id BIGINT AUTO_INCREMENT PRIMARY KEY, customer_id BIGINT, "
+                + "product_id BIGINT, product_name VARCHAR(255), price DECIMAL(10, 2), quantity INT)");
+    }
+
+    private void insertRow(long customerId, long productId, String name, int quantity) {
+        jdbcTemplate.update("INSERT INTO cart (customer_id, product_id, product_name, price, quantity) "
+                + "VALUES (?, ?, ?, 10, ?)", customerId, productId, name, quantity);
+    }
+
+    private void migrate() {
+        CartKeyMigration migration = new CartKeyMigration();
+        ReflectionTestUtils.setField(migration, "dataSource", dataSource);
+        migration.afterPropertiesSet();
+    }
+
+    // "customer:product" -> "name x quantity"
+    private Map<String, String> rows() {
+        Map<String, String> rows = new TreeMap<>();
+        jdbcTemplate.query("SELECT customer_id, product_id, product_name, quantity FROM cart", rs -> {
+            rows.put(rs.getLong(1) + ":" + rs.getLong(2), rs.getString(3) + " x" + rs.getInt(4));
+        });
+        return rows;
+    }
+
+    @Test
+    void duplicatesAreFoldedIntoTheOldestRowWithQuantitiesSummed() {
+        insertRow(1, 10, "first", 2);
+        insertRow(1, 10, "second", 3);
+        insertRow(1, 10, "third", 1);
+        insertRow(1, 11, "alone", 4);
+        insertRow(2, 10, "other customer", 5);
+
+        migrate();
+
+        assertEquals(Map.of("1:10", "first x6", "1:11", "alone x4", "2:10", "other customer x5"), rows());
+        // The key can go on now
+        jdbcTemplate.execute("ALTER TABLE cart ADD CONSTRAINT uk_cart_customer_product UNIQUE (customer_id, product_id)");
+    }
+
+    @Test
+    void tableThatAlreadyHasTheKeyIsLeftAlone() {
+        jdbcTemplate.execute("ALTER TABLE cart ADD CONSTRAINT uk_cart_customer_product UNIQUE (customer_id, product_id)");
+        insertRow(1, 10, "only", 2);
+
+        migrate();
+
+        assertEquals(Map.of("1:10", "only x2"), rows());
+    }
+
+    @Test
+    void freshDatabaseWithoutACartTableIsSkipped() {
+        jdbcTemplate.execute("DROP TABLE cart");
+
+        migrate();
+    }
+}
@@ -0,0 +1,99 @@
+package com.buygreen.controller;
+
+import com.buygreen.dto.PaymentOrderRequest;
+import com.buygreen.model.Cart;
+import com.buygreen.model.Product;
+import com.buygreen.repository.ProductRepository;
+import com.buygreen.service.CartService;
+import com.buygreen.service.PaymentService;
+import com.buygreen.service.StockReservationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PaymentControllerTest {
+
+    private static final AtomicLong CUSTOMERS = new AtomicLong(5_000);
+
+    @Autowired
+    private PaymentController paymentController;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private StockReservationService reservations;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private PaymentService paymentService;
+
+    private Long cartWithOneProduct(Long customerId, int stock) {
+        Product product = new Product();
+        product.setName("Payment Hemp Bag");
+        product.setPrice(new BigDecimal("150"));
+        product.setStockQuantity(stock);
+        product.setUpdatedAt(LocalDateTime.now());
+        Long productId = productRepository.save(product).getId();
+        cartService.addToCart(new Cart(customerId, null, new BigDecimal("150"), productId, "Hemp Bag", stock));
+        return productId;
+    }
+
+    private static PaymentOrderRequest request(Long customerId) {
+        PaymentOrderRequest request = new PaymentOrderRequest();
+        request.setCustomerId(customerId);
+        request.setAmount(new BigDecimal("300"));
+        return request;
+    }
+
+    private int reserved(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT reserved_quantity FROM products WHERE id = ?", Integer.class,
+                productId);
+    }
+
+    @Test
+    void unexpectedFailureStillReleasesTheHold() throws Exception {
+        Long customer = CUSTOMERS.incrementAndGet();
+        Long bag = cartWithOneProduct(customer, 2);
+        when(paymentService.createOrder(any())).thenThrow(new IllegalStateException("Gateway client not ready"));
+
+        assertThrows(IllegalStateException.class, () -> paymentController.createPaymentOrder(request(customer)));
+
+        assertEquals(0, reserved(bag));
+        assertFalse(reservations.isHolding(customer));
+    }
+
+    @Test
+    void startedPaymentKeepsTheHold() throws Exception {
+        Long customer = CUSTOMERS.incrementAndGet();
+        Long bag = cartWithOneProduct(customer, 2);
+        when(paymentService.createOrder(any())).thenReturn(Map.of("id", "order_test"));
+
+        assertEquals(201, paymentController.createPaymentOrder(request(customer)).getStatusCode().value());
+
+        assertEquals(2, reserved(bag));
+        assertEquals(List.of(2), cartService.getCartItems(customer).stream().map(Cart::getQuantity).toList());
+    }
+}
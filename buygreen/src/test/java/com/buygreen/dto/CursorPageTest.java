@@ -0,0 +1,58 @@
+package com.buygreen.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CursorPageTest {
+
+    @Test
+    void cursorSurvivesARoundTrip() {
+        CursorPage.Cursor cursor = new CursorPage.Cursor("Bamboo | Jute Mat", 42L);
+
+        String token = cursor.encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+        assertEquals(cursor, CursorPage.Cursor.decode(token));
+    }
+
+    @Test
+    void cursorKeepsNonAsciiAndEmptySortKeys() {
+        assertEquals(new CursorPage.Cursor("Crème ☕", 7L),
+                CursorPage.Cursor.decode(new CursorPage.Cursor("Crème ☕", 7L).encode()));
+        assertEquals(new CursorPage.Cursor("", 1L), CursorPage.Cursor.decode(new CursorPage.Cursor("", 1L).encode()));
+    }
+
+    @Test
+    void rejectsTamperedCursors() {
+        assertThrows(IllegalArgumentException.class, () -> CursorPage.Cursor.decode("not base64!"));
+        // "no-separator" and "name|abc"
+        assertThrows(IllegalArgumentException.class, () -> CursorPage.Cursor.decode("bm8tc2VwYXJhdG9y"));
+        assertThrows(IllegalArgumentException.class, () -> CursorPage.Cursor.decode("bmFtZXxhYmM"));
+    }
+
+    @Test
+    void extraRowMeansAnotherPage() {
+        CursorPage<String> page = CursorPage.of(List.of("a", "b", "c"), 2, row -> new CursorPage.Cursor(row, 9L), 3L);
+
+        assertEquals(List.of("a", "b"), page.getContent());
+        assertTrue(page.isHasMore());
+        assertEquals(new CursorPage.Cursor("b", 9L), CursorPage.Cursor.decode(page.getNextCursor()));
+        assertEquals(3L, page.getTotalElements());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        CursorPage<String> page = CursorPage.of(List.of("a", "b"), 2, row -> new CursorPage.Cursor(row, 1L), null);
+
+        assertEquals(List.of("a", "b"), page.getContent());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+}
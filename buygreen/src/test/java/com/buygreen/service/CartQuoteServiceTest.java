@@ -0,0 +1,182 @@
+package com.buygreen.service;
+
+import com.buygreen.dto.CartQuote;
+import com.buygreen.dto.OrderRequest;
+import com.buygreen.model.Cart;
+import com.buygreen.model.Product;
+import com.buygreen.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CartQuoteServiceTest {
+
+    private static final AtomicLong CUSTOMERS = new AtomicLong(4_000);
+
+    @Autowired
+    private CartQuoteService quoteService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Long product(String name, String price) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal(price));
+        product.setStockQuantity(20);
+        product.setUpdatedAt(LocalDateTime.now());
+        return productRepository.save(product).getId();
+    }
+
+    // The cart keeps whatever price the client sent; the quote must not
+    private void addToCart(Long customerId, Long productId, int quantity) {
+        cartService.addToCart(new Cart(customerId, null, new BigDecimal("0.01"), productId, "Client name", quantity));
+    }
+
+    private static OrderRequest request(Long customerId, String token) {
+        OrderRequest request = new OrderRequest();
+        request.setCustomerId(customerId);
+        request.setQuoteToken(token);
+        request.setTotalAmount(new BigDecimal("1"));
+        return request;
+    }
+
+    private static OrderRequest.OrderItemRequest item(Long productId, int quantity) {
+        OrderRequest.OrderItemRequest item = new OrderRequest.OrderItemRequest();
+        item.setProductId(productId);
+        item.setProductName("Client name");
+        item.setPrice(new BigDecimal("0.01"));
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    @Test
+    void pricesTheCartFromTheCatalog() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        Long bottle = product("Quote Steel Bottle", "450.00");
+        Long pouch = product("Quote Cotton Pouch", "75.50");
+        addToCart(customer, bottle, 2);
+        addToCart(customer, pouch, 1);
+
+        CartQuote quote = quoteService.quote(customer, null);
+
+        assertEquals(List.of(bottle, pouch), quote.getItems().stream().map(CartQuote.Line::getProductId).toList());
+        assertEquals(new BigDecimal("900.00"), quote.getItems().get(0).getLineTotal());
+        assertEquals(new BigDecimal("975.50"), quote.getSubtotal());
+        assertEquals(new BigDecimal("975.50"), quote.getTotal());
+    }
+
+    @Test
+    void applyQuoteReplacesClientItemsAndTotal() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        Long soap = product("Quote Neem Soap", "60.00");
+        addToCart(customer, soap, 3);
+        CartQuote quote = quoteService.quote(customer, null);
+
+        OrderRequest request = request(customer, quote.getToken());
+        quoteService.applyQuote(request);
+
+        assertEquals(new BigDecimal("180.00"), request.getTotalAmount());
+        assertEquals(1, request.getItems().size());
+        OrderRequest.OrderItemRequest item = request.getItems().get(0);
+        assertEquals(soap, item.getProductId());
+        assertEquals("Quote Neem Soap", item.getProductName());
+        assertEquals(new BigDecimal("60.00"), item.getPrice());
+        assertEquals(3, item.getQuantity());
+        assertNull(request.getCouponCode());
+    }
+
+    @Test
+    void rejectsATamperedToken() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        addToCart(customer, product("Quote Jute Mat", "300.00"), 1);
+        String[] parts = quoteService.quote(customer, null).getToken().split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(parts[1])).replace("300.00", "3.00");
+        String forged = parts[0] + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes())
+                + "." + parts[2];
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> quoteService.applyQuote(request(customer, forged)));
+
+        assertEquals("Invalid quote token", e.getMessage());
+    }
+
+    @Test
+    void rejectsAnotherCustomersToken() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        addToCart(customer, product("Quote Clay Lamp", "800.00"), 1);
+        String token = quoteService.quote(customer, null).getToken();
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> quoteService.applyQuote(request(CUSTOMERS.incrementAndGet(), token)));
+
+        assertEquals("Invalid quote token", e.getMessage());
+    }
+
+    @Test
+    void rejectsAnExpiredToken() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        addToCart(customer, product("Quote Cane Basket", "250.00"), 1);
+        long ttl = (long) ReflectionTestUtils.getField(quoteService, "ttlSeconds");
+        String token;
+        try {
+            ReflectionTestUtils.setField(quoteService, "ttlSeconds", -60L);
+            token = quoteService.quote(customer, null).getToken();
+        } finally {
+            ReflectionTestUtils.setField(quoteService, "ttlSeconds", ttl);
+        }
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> quoteService.applyQuote(request(customer, token)));
+
+        assertEquals("Quote has expired, please review your cart again", e.getMessage());
+    }
+
+    @Test
+    void repriceReplacesClientPricesNamesAndTotal() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        Long brush = product("Reprice Bamboo Brush", "40.00");
+        Long comb = product("Reprice Neem Comb", "25.00");
+        OrderRequest request = request(customer, null);
+        request.setItems(List.of(item(brush, 3), item(comb, 2)));
+
+        quoteService.reprice(request);
+
+        assertEquals(new BigDecimal("170.00"), request.getTotalAmount());
+        assertEquals("Reprice Bamboo Brush", request.getItems().get(0).getProductName());
+        assertEquals(new BigDecimal("40.00"), request.getItems().get(0).getPrice());
+        assertEquals(new BigDecimal("25.00"), request.getItems().get(1).getPrice());
+    }
+
+    @Test
+    void repriceRejectsAnUnknownProduct() {
+        OrderRequest request = request(CUSTOMERS.incrementAndGet(), null);
+        request.setItems(List.of(item(Long.MAX_VALUE, 1)));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> quoteService.reprice(request));
+
+        assertEquals("Product not found with ID: " + Long.MAX_VALUE, e.getMessage());
+    }
+
+    @Test
+    void emptyCartCannotBeQuoted() {
+        assertThrows(IllegalArgumentException.class, () -> quoteService.quote(CUSTOMERS.incrementAndGet(), null));
+    }
+}
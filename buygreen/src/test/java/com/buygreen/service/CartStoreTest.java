@@ -0,0 +1,184 @@
+package com.buygreen.service;
+
+import com.buygreen.model.Cart;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CartStoreTest {
+
+    private static final AtomicLong CUSTOMERS = new AtomicLong(2_000);
+
+    private static final BigDecimal PRICE = new BigDecimal("40");
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void flushEverything() {
+        while (cartStore.flush() > 0) {
+            // Leave no dirty carts from earlier tests behind
+        }
+    }
+
+    // product id -> quantity as stored in the cart table
+    private Map<Long, Integer> rows(Long customerId) {
+        Map<Long, Integer> rows = new TreeMap<>();
+        jdbcTemplate.query("SELECT product_id, quantity FROM cart WHERE customer_id = ?",
+                rs -> {
+                    rows.put(rs.getLong(1), rs.getInt(2));
+                }, customerId);
+        return rows;
+    }
+
+    private static Map<Long, Integer> quantities(List<Cart> items) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        items.forEach(item -> quantities.put(item.getProductId(), item.getQuantity()));
+        return quantities;
+    }
+
+    private void insertRow(Long customerId, long productId, int quantity) {
+        jdbcTemplate.update("INSERT INTO cart (customer_id, product_id, product_name, price, quantity) "
+                + "VALUES (?, ?, ?, ?, ?)", customerId, productId, "item " + productId, PRICE, quantity);
+    }
+
+    @Test
+    void loadsFromTheTableAndWritesEditsBackOnFlush() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        insertRow(customer, 1, 2);
+
+        assertEquals(1, cartStore.add(customer, 1L, "item 1", PRICE, 1, 10));
+        assertEquals(2, cartStore.add(customer, 2L, "item 2", PRICE, 5, 2));
+        assertEquals(0, cartStore.add(customer, 2L, "item 2", PRICE, 1, 2));
+        assertEquals(Map.of(1L, 2), rows(customer));
+
+        cartStore.flush();
+
+        assertEquals(Map.of(1L, 3, 2L, 2), rows(customer));
+        assertEquals(rows(customer), quantities(cartStore.getItems(customer)));
+    }
+
+    @Test
+    void decrementAndRemoveDeleteRowsOnFlush() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        insertRow(customer, 1, 1);
+        insertRow(customer, 2, 4);
+        insertRow(customer, 3, 1);
+
+        assertEquals(null, cartStore.decrement(customer, 1L));
+        assertEquals(3, cartStore.decrement(customer, 2L).getQuantity());
+        cartStore.remove(customer, 3L);
+        cartStore.flush();
+
+        assertEquals(Map.of(2L, 3), rows(customer));
+    }
+
+    @Test
+    void replaceWritesOnlyTheLinesThatChanged() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        insertRow(customer, 1, 1);
+        insertRow(customer, 2, 2);
+        insertRow(customer, 3, 3);
+        cartStore.getItems(customer);
+        // Changed behind the store's back; a rewrite of the unchanged line would undo this
+        jdbcTemplate.update("UPDATE cart SET quantity = 9 WHERE customer_id = ? AND product_id = 2", customer);
+
+        List<Cart> result = cartStore.replace(customer, List.of(
+                new Cart(customer, null, PRICE, 4L, "item 4", 1),
+                new Cart(customer, null, PRICE, 2L, "item 2", 2),
+                new Cart(customer, null, PRICE, 3L, "item 3", 5)));
+
+        assertEquals(List.of(4L, 2L, 3L), result.stream().map(Cart::getProductId).toList());
+        assertEquals(3, cartStore.stats().get("dirtyLines"));
+        cartStore.flush();
+        assertEquals(Map.of(2L, 9, 3L, 5, 4L, 1), rows(customer));
+    }
+
+    @Test
+    void clearEmptiesTheCartWhenTheOrderCommits() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        cartStore.add(customer, 1L, "item 1", PRICE, 2, 10);
+        cartStore.flush();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            cartStore.clear(customer);
+            // Still there until the order commits
+            assertEquals(Map.of(1L, 2), quantities(cartStore.getItems(customer)));
+        });
+
+        assertEquals(List.of(), cartStore.getItems(customer));
+        assertEquals(Map.of(), rows(customer));
+    }
+
+    @Test
+    void clearKeepsTheCartWhenTheOrderRollsBack() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        cartStore.add(customer, 1L, "item 1", PRICE, 2, 10);
+        cartStore.flush();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            cartStore.clear(customer);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(Map.of(1L, 2), quantities(cartStore.getItems(customer)));
+        assertEquals(Map.of(1L, 2), rows(customer));
+    }
+
+    @Test
+    void flushSkipsACartBeingClearedAndWritesItsEditsAfterARollback() throws Exception {
+        Long customer = CUSTOMERS.incrementAndGet();
+        cartStore.add(customer, 1L, "item 1", PRICE, 2, 10);
+        cartStore.flush();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            cartStore.clear(customer);
+            cartStore.add(customer, 2L, "item 2", PRICE, 1, 10);
+            // A flush on the flusher thread while checkout is in progress leaves the cart alone
+            assertEquals(0, CompletableFuture.supplyAsync(cartStore::flush).join());
+            status.setRollbackOnly();
+        });
+
+        assertEquals(Map.of(1L, 2), rows(customer));
+        cartStore.flush();
+        assertEquals(Map.of(1L, 2, 2L, 1), rows(customer));
+        assertEquals(rows(customer), quantities(cartStore.getItems(customer)));
+    }
+
+    @Test
+    void editsMadeDuringACommittedCheckoutAreDropped() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        cartStore.add(customer, 1L, "item 1", PRICE, 2, 10);
+        cartStore.flush();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            cartStore.clear(customer);
+            cartStore.add(customer, 2L, "item 2", PRICE, 1, 10);
+        });
+        cartStore.flush();
+
+        assertEquals(List.of(), cartStore.getItems(customer));
+        assertEquals(Map.of(), rows(customer));
+    }
+}
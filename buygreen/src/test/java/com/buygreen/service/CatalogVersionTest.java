@@ -0,0 +1,53 @@
+package com.buygreen.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogVersionTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private CatalogVersion catalogVersion;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.query(anyString(), any(ResultSetExtractor.class))).thenReturn("3-7-1000");
+        catalogVersion = new CatalogVersion();
+        ReflectionTestUtils.setField(catalogVersion, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void seedsFromTheTableOnceAndThenStaysInMemory() {
+        assertEquals("\"c3-7-1000\"", catalogVersion.current().etag());
+
+        catalogVersion.bump();
+        String bumped = catalogVersion.current().etag();
+        catalogVersion.bump();
+
+        assertTrue(bumped.startsWith("\"c3-7-1000-"), bumped);
+        assertNotEquals(bumped, catalogVersion.current().etag());
+        verify(jdbcTemplate, times(1)).query(anyString(), any(ResultSetExtractor.class));
+    }
+
+    @Test
+    void bumpBeforeTheFirstReadStillSeeds() {
+        catalogVersion.bump();
+
+        assertTrue(catalogVersion.current().etag().startsWith("\"c3-7-1000-"));
+    }
+}
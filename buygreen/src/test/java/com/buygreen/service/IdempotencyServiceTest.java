@@ -0,0 +1,199 @@
+package com.buygreen.service;
+
+import com.buygreen.model.IdempotencyRecord;
+import com.buygreen.model.Order;
+import com.buygreen.repository.IdempotencyRecordRepository;
+import com.buygreen.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class IdempotencyServiceTest {
+
+    private static final AtomicLong CUSTOMERS = new AtomicLong(3_000);
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private static String body(ResponseEntity<?> response) {
+        return new String((byte[]) response.getBody(), StandardCharsets.UTF_8);
+    }
+
+    private int claims(Long customerId, String key) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_keys WHERE idempotency_key = ?",
+                Integer.class, customerId + ":" + key);
+    }
+
+    @Test
+    void replaysTheStoredResponseWithoutRunningTheActionAgain() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        AtomicInteger runs = new AtomicInteger();
+        Map<String, Object> request = Map.of("productId", 7, "quantity", 2);
+
+        ResponseEntity<?> first = idempotencyService.execute("key-1", customer, request, () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("id", 99));
+        });
+        ResponseEntity<?> second = idempotencyService.execute("key-1", customer, request,
+                () -> {
+                    throw new AssertionError("Ran twice");
+                });
+
+        assertEquals(HttpStatus.CREATED, first.getStatusCode());
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals(HttpStatus.CREATED, second.getStatusCode());
+        assertEquals("true", second.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals("{\"id\":99}", body(second));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void sameKeyWithADifferentRequestIsRejected() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        idempotencyService.execute("key-2", customer, Map.of("quantity", 1),
+                () -> ResponseEntity.status(HttpStatus.CREATED).body(Map.of("id", 1)));
+
+        ResponseEntity<?> reused = idempotencyService.execute("key-2", customer, Map.of("quantity", 3),
+                () -> {
+                    throw new AssertionError("Ran for a different request");
+                });
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, reused.getStatusCode());
+        assertEquals(Map.of("message", "Idempotency-Key was already used for a different request"),
+                reused.getBody());
+    }
+
+    @Test
+    void keysAreScopedPerCustomer() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        Long other = CUSTOMERS.incrementAndGet();
+        AtomicInteger runs = new AtomicInteger();
+
+        idempotencyService.execute("shared", customer, Map.of(), () -> ResponseEntity.ok(runs.incrementAndGet()));
+        idempotencyService.execute("shared", other, Map.of(), () -> ResponseEntity.ok(runs.incrementAndGet()));
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void serverErrorsAreNotStored() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        AtomicInteger runs = new AtomicInteger();
+
+        ResponseEntity<?> failed = idempotencyService.execute("key-3", customer, Map.of(), () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("message", "down"));
+        });
+        assertEquals(0, claims(customer, "key-3"));
+        ResponseEntity<?> retried = idempotencyService.execute("key-3", customer, Map.of(), () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.ok(Map.of());
+        });
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, failed.getStatusCode());
+        assertEquals(HttpStatus.OK, retried.getStatusCode());
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void keyClaimedElsewhereAndStillRunningIsAConflict() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        IdempotencyRecord claim = new IdempotencyRecord();
+        claim.setIdempotencyKey(customer + ":key-6");
+        claim.setRequestHash("0".repeat(64));
+        claim.setStatus(IdempotencyRecord.Status.IN_PROGRESS);
+        claim.setCreatedAt(LocalDateTime.now());
+        claim.setExpiresAt(LocalDateTime.now().plusHours(1));
+        recordRepository.save(claim);
+
+        ResponseEntity<?> response = idempotencyService.execute("key-6", customer, Map.of(),
+                () -> {
+                    throw new AssertionError("Ran while another request holds the key");
+                });
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals(1, claims(customer, "key-6"));
+    }
+
+    @Test
+    void retryRecoversAnOrderThatCommittedBeforeItsResponseWasStored() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        AtomicLong orderId = new AtomicLong();
+
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute("key-4", customer,
+                Map.of("cart", 1), () -> {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        Order order = new Order();
+                        order.setCustomerId(customer);
+                        order.setTotalAmount(new BigDecimal("120"));
+                        order.setOrderDate(LocalDateTime.now());
+                        orderId.set(orderRepository.save(order).getId());
+                        idempotencyService.attachOrder(order.getId());
+                    });
+                    throw new IllegalStateException("Lost the connection after the commit");
+                }));
+        // The claim stays, because an order committed under it
+        assertEquals(1, claims(customer, "key-4"));
+
+        ResponseEntity<?> retried = idempotencyService.execute("key-4", customer, Map.of("cart", 1),
+                () -> {
+                    throw new AssertionError("Placed a second order");
+                });
+
+        assertEquals(HttpStatus.CREATED, retried.getStatusCode());
+        assertEquals("true", retried.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertTrue(body(retried).contains("\"id\":" + orderId.get()), body(retried));
+        assertEquals(1, orderRepository.findAll().stream().filter(o -> customer.equals(o.getCustomerId())).count());
+    }
+
+    @Test
+    void failedActionFreesTheKey() {
+        Long customer = CUSTOMERS.incrementAndGet();
+
+        assertThrows(IllegalArgumentException.class, () -> idempotencyService.execute("key-5", customer, Map.of(),
+                () -> {
+                    throw new IllegalArgumentException("Invalid order");
+                }));
+
+        assertEquals(0, claims(customer, "key-5"));
+        assertEquals(HttpStatus.OK, idempotencyService.execute("key-5", customer, Map.of(),
+                () -> ResponseEntity.ok(Map.of())).getStatusCode());
+    }
+
+    @Test
+    void rejectsOverlongKeys() {
+        assertThrows(IllegalArgumentException.class,
+                () -> idempotencyService.execute("k".repeat(300), 1L, Map.of(), () -> ResponseEntity.ok(Map.of())));
+    }
+}
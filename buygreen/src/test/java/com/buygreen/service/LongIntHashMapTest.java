@@ -0,0 +1,62 @@
+package com.buygreen.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LongIntHashMapTest {
+
+    @Test
+    void growsPastItsInitialCapacityWithoutLosingCounts() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        for (long key = -5_000; key < 5_000; key++) {
+            map.add(key * 31, 1);
+            map.add(key * 31, (int) (key & 7));
+        }
+
+        assertEquals(10_000, map.size());
+        for (long key = -5_000; key < 5_000; key++) {
+            assertEquals(1 + (int) (key & 7), map.get(key * 31));
+        }
+        assertEquals(0, map.get(1));
+    }
+
+    @Test
+    void forEachVisitsEveryKeyOnce() {
+        LongIntHashMap map = new LongIntHashMap();
+        for (long key = 0; key < 100; key++) {
+            map.add(key << 20, (int) key);
+        }
+
+        Map<Long, Integer> seen = new HashMap<>();
+        map.forEach((key, value) -> assertEquals(null, seen.put(key, value)));
+        assertEquals(100, seen.size());
+        seen.forEach((key, value) -> assertEquals(key >> 20, (long) value));
+    }
+
+    @Test
+    void clearRemovesEveryKeyAndTheMapCanBeReused() {
+        LongIntHashMap map = new LongIntHashMap(8);
+        for (long key = 0; key < 1_000; key++) {
+            map.add(key, 5);
+        }
+
+        map.clear();
+
+        assertEquals(0, map.size());
+        assertEquals(0, map.get(10));
+        map.forEach((key, value) -> {
+            throw new AssertionError("Cleared map still holds " + key);
+        });
+
+        map.add(10, 2);
+        map.add(2_000, 3);
+        assertEquals(2, map.size());
+        assertEquals(2, map.get(10));
+        assertEquals(3, map.get(2_000));
+        assertEquals(0, map.get(11));
+    }
+}
@@ -0,0 +1,172 @@
+package com.buygreen.service;
+
+import com.buygreen.dto.OrderNotification;
+import com.buygreen.model.NotificationOutbox;
+import com.buygreen.model.Order;
+import com.buygreen.repository.NotificationOutboxRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class NotificationOutboxServiceTest {
+
+    @Autowired
+    private NotificationOutboxService outbox;
+
+    @Autowired
+    private NotificationOutboxRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    @BeforeEach
+    void emptyOutbox() {
+        repository.deleteAll();
+    }
+
+    private Long queue(NotificationOutbox.Type type, LocalDateTime due, int attempts) throws Exception {
+        OrderNotification notification = new OrderNotification(42L, LocalDateTime.now(), Order.OrderStatus.PENDING,
+                new BigDecimal("300"), "Street 1", null, null, null, null, null, null, null, null, BigDecimal.ZERO,
+                "Asha", "asha@example.com", List.of(new OrderNotification.Item("Jute Bag", 2, new BigDecimal("150"))));
+        NotificationOutbox row = new NotificationOutbox();
+        row.setType(type);
+        row.setOrderId(42L);
+        row.setRecipient("asha@example.com");
+        row.setPayload(objectMapper.writeValueAsString(notification));
+        row.setStatus(NotificationOutbox.Status.PENDING);
+        row.setAttempts(attempts);
+        row.setNextAttemptAt(due);
+        row.setCreatedAt(LocalDateTime.now());
+        return repository.save(row).getId();
+    }
+
+    private NotificationOutbox row(Long id) {
+        return repository.findById(id).orElseThrow();
+    }
+
+    @Test
+    void sendsDueNotificationsOnceAndMarksThemSent() throws Exception {
+        Long id = queue(NotificationOutbox.Type.ORDER_CONFIRMATION, LocalDateTime.now().minusSeconds(1), 0);
+
+        assertEquals(1, outbox.dispatchBatch());
+        assertEquals(0, outbox.dispatchBatch());
+
+        verify(emailService, times(1)).sendOrderConfirmationEmail(eq("asha@example.com"),
+                eq(objectMapper.readValue(row(id).getPayload(), OrderNotification.class)));
+        NotificationOutbox sent = row(id);
+        assertEquals(NotificationOutbox.Status.SENT, sent.getStatus());
+        assertEquals(1, sent.getAttempts());
+        assertNotNull(sent.getSentAt());
+    }
+
+    @Test
+    void leavesNotificationsThatAreNotDueYet() throws Exception {
+        Long id = queue(NotificationOutbox.Type.ADMIN_NEW_ORDER, LocalDateTime.now().plusMinutes(5), 0);
+
+        assertEquals(0, outbox.dispatchBatch());
+
+        verify(emailService, never()).sendNewOrderNotificationToAdmin(any(), any());
+        assertEquals(NotificationOutbox.Status.PENDING, row(id).getStatus());
+    }
+
+    @Test
+    void claimedNotificationIsLeasedAwayFromOtherDispatchers() throws Exception {
+        Long id = queue(NotificationOutbox.Type.ORDER_STATUS_UPDATE, LocalDateTime.now().minusSeconds(1), 0);
+        AtomicInteger claimedByOther = new AtomicInteger(-1);
+        AtomicReference<LocalDateTime> leasedUntil = new AtomicReference<>();
+        doAnswer(invocation -> {
+            // Another dispatcher polling while this one is still sending
+            claimedByOther.set(outbox.dispatchBatch());
+            leasedUntil.set(row(id).getNextAttemptAt());
+            return null;
+        }).when(emailService).sendOrderStatusUpdateEmail(any(), any());
+
+        outbox.dispatchBatch();
+
+        assertEquals(0, claimedByOther.get());
+        assertTrue(leasedUntil.get().isAfter(LocalDateTime.now().plusMinutes(4)), String.valueOf(leasedUntil.get()));
+        verify(emailService, times(1)).sendOrderStatusUpdateEmail(any(), any());
+        assertEquals(NotificationOutbox.Status.SENT, row(id).getStatus());
+    }
+
+    @Test
+    void failedSendIsRetriedWithExponentialBackoff() throws Exception {
+        doThrow(new IllegalStateException("SMTP down")).when(emailService).sendOrderConfirmationEmail(any(), any());
+        Long id = queue(NotificationOutbox.Type.ORDER_CONFIRMATION, LocalDateTime.now().minusSeconds(1), 0);
+
+        LocalDateTime before = LocalDateTime.now();
+        outbox.dispatchBatch();
+
+        NotificationOutbox first = row(id);
+        assertEquals(NotificationOutbox.Status.PENDING, first.getStatus());
+        assertEquals(1, first.getAttempts());
+        assertEquals("IllegalStateException: SMTP down", first.getLastError());
+        assertBetween(first.getNextAttemptAt(), before.plusSeconds(30), Duration.ofSeconds(5));
+
+        // Due again: the second failure waits twice as long, the third four times
+        jdbcTemplate.update("UPDATE notification_outbox SET next_attempt_at = ? WHERE id = ?",
+                LocalDateTime.now().minusSeconds(1), id);
+        before = LocalDateTime.now();
+        outbox.dispatchBatch();
+        assertBetween(row(id).getNextAttemptAt(), before.plusSeconds(60), Duration.ofSeconds(5));
+
+        jdbcTemplate.update("UPDATE notification_outbox SET next_attempt_at = ? WHERE id = ?",
+                LocalDateTime.now().minusSeconds(1), id);
+        before = LocalDateTime.now();
+        outbox.dispatchBatch();
+        assertBetween(row(id).getNextAttemptAt(), before.plusSeconds(120), Duration.ofSeconds(5));
+        assertEquals(3, row(id).getAttempts());
+    }
+
+    @Test
+    void givesUpAfterTheLastAttempt() throws Exception {
+        doThrow(new IllegalStateException("Mailbox unavailable")).when(emailService)
+                .sendNewOrderNotificationToAdmin(any(), any());
+        Long id = queue(NotificationOutbox.Type.ADMIN_NEW_ORDER, LocalDateTime.now().minusSeconds(1), 7);
+        long gaveUpBefore = (long) outbox.stats().get("gaveUpSinceStart");
+
+        outbox.dispatchBatch();
+
+        NotificationOutbox failed = row(id);
+        assertEquals(NotificationOutbox.Status.FAILED, failed.getStatus());
+        assertEquals(8, failed.getAttempts());
+        assertEquals(gaveUpBefore + 1, (long) outbox.stats().get("gaveUpSinceStart"));
+        assertEquals(0, outbox.dispatchBatch());
+    }
+
+    private static void assertBetween(LocalDateTime actual, LocalDateTime expected, Duration tolerance) {
+        assertTrue(!actual.isBefore(expected.minus(tolerance)) && !actual.isAfter(expected.plus(tolerance)),
+                actual + " is not within " + tolerance + " of " + expected);
+    }
+}
@@ -0,0 +1,173 @@
+package com.buygreen.service;
+
+import com.buygreen.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ProductCacheTest {
+
+    private ProductCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = cache(3, 2, 300);
+    }
+
+    private static ProductCache cache(int maxSize, int maxPages, long ttlSeconds) {
+        ProductCache cache = new ProductCache();
+        ReflectionTestUtils.setField(cache, "maxSize", maxSize);
+        ReflectionTestUtils.setField(cache, "maxPages", maxPages);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", ttlSeconds);
+        return cache;
+    }
+
+    private static Product product(long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setStockQuantity(10);
+        return product;
+    }
+
+    private static ProductStockUpdater.StockLevel level(int stockQuantity, long version) {
+        return new ProductStockUpdater.StockLevel(stockQuantity, version, LocalDateTime.now());
+    }
+
+    private static Page<Product> page(Pageable pageable, long... ids) {
+        return new PageImpl<>(Arrays.stream(ids).mapToObj(ProductCacheTest::product).toList(), pageable, 50);
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedProduct() {
+        cache.put(product(1));
+        cache.put(product(2));
+        cache.put(product(3));
+        cache.get(1L);
+
+        cache.put(product(4));
+
+        assertNotNull(cache.get(1L));
+        assertNull(cache.get(2L));
+        assertNotNull(cache.get(3L));
+        assertNotNull(cache.get(4L));
+        assertEquals(1L, cache.stats().get("evictions"));
+    }
+
+    @Test
+    void invalidateDropsOnlyThatProduct() {
+        Product first = product(1);
+        cache.put(first);
+        cache.put(product(2));
+
+        cache.invalidate(2L);
+
+        assertSame(first, cache.get(1L));
+        assertNull(cache.get(2L));
+    }
+
+    @Test
+    void pageIsServedFromTheProductsItListed() {
+        Pageable pageable = PageRequest.of(0, 2);
+        cache.putPage(pageable, page(pageable, 1, 2));
+
+        cache.updateStock(2L, level(3, 1));
+        Page<Product> cached = cache.getPage(pageable);
+
+        assertEquals(List.of(1L, 2L), cached.getContent().stream().map(Product::getId).toList());
+        assertEquals(3, cached.getContent().get(1).getStockQuantity());
+        assertEquals(50, cached.getTotalElements());
+        assertNull(cache.getPage(PageRequest.of(1, 2)));
+    }
+
+    @Test
+    void staleStockUpdatesAreIgnored() {
+        cache.put(product(1));
+        cache.updateStock(1L, level(4, 2));
+
+        cache.updateStock(1L, level(9, 1));
+
+        assertEquals(4, cache.get(1L).getStockQuantity());
+        assertEquals(2L, cache.get(1L).getVersion());
+    }
+
+    @Test
+    void stockUpdateLeavesInstancesAlreadyHandedOutAlone() {
+        cache.put(product(1));
+        Product handedOut = cache.get(1L);
+
+        cache.updateStock(1L, level(2, 1));
+
+        assertEquals(10, handedOut.getStockQuantity());
+        assertNull(handedOut.getVersion());
+        assertEquals(2, cache.get(1L).getStockQuantity());
+    }
+
+    @Test
+    void pageMissesOnceAnyOfItsProductsIsGone() {
+        Pageable pageable = PageRequest.of(0, 2);
+        cache.putPage(pageable, page(pageable, 1, 2));
+
+        cache.invalidate(1L);
+
+        assertNull(cache.getPage(pageable));
+    }
+
+    @Test
+    void invalidatePagesKeepsProducts() {
+        Pageable pageable = PageRequest.of(0, 2);
+        cache.putPage(pageable, page(pageable, 1, 2));
+
+        cache.invalidatePages();
+
+        assertNull(cache.getPage(pageable));
+        assertNotNull(cache.get(1L));
+    }
+
+    @Test
+    void boundsThePageCountToo() {
+        for (int number = 0; number < 3; number++) {
+            Pageable pageable = PageRequest.of(number, 1);
+            cache.putPage(pageable, page(pageable, number + 1));
+        }
+
+        assertNull(cache.getPage(PageRequest.of(0, 1)));
+        assertNotNull(cache.getPage(PageRequest.of(2, 1)));
+        assertEquals(2, cache.stats().get("pages"));
+    }
+
+    @Test
+    void expiredEntriesAreMisses() {
+        ProductCache expiring = cache(10, 10, 0);
+        expiring.put(product(1));
+
+        assertNull(expiring.get(1L));
+        assertEquals(1L, expiring.stats().get("expirations"));
+        assertEquals(0L, expiring.stats().get("hits"));
+    }
+
+    @Test
+    void invalidateAllEmptiesTheCache() {
+        Pageable pageable = PageRequest.of(0, 2);
+        cache.putPage(pageable, page(pageable, 1, 2));
+
+        cache.invalidateAll();
+
+        assertNull(cache.get(1L));
+        assertNull(cache.getPage(pageable));
+        assertEquals(0, cache.stats().get("products"));
+    }
+}
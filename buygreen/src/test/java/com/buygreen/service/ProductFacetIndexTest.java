@@ -0,0 +1,92 @@
+package com.buygreen.service;
+
+import com.buygreen.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProductFacetIndexTest {
+
+    private static Product product(long id, String category, String price, int stock) {
+        Product product = new Product();
+        product.setId(id);
+        product.setCategory(category);
+        product.setPrice(new BigDecimal(price));
+        product.setStockQuantity(stock);
+        return product;
+    }
+
+    private static ProductFacetIndex catalog() {
+        ProductFacetIndex index = new ProductFacetIndex();
+        index.index(product(1, "Kitchen", "80", 50));
+        index.index(product(2, "kitchen ", "250", 5));
+        index.index(product(3, "Garden", "99.99", 0));
+        index.index(product(4, "Garden", "700", 20));
+        index.index(product(5, "Bath", "5000", 3));
+        return index;
+    }
+
+    @Test
+    void countsEveryValueIgnoringOnlyItsOwnFacetSelection() {
+        ProductFacetIndex.FacetResult result = catalog().filter(List.of("KITCHEN"), List.of("under-100"), null, 0, 10);
+
+        assertEquals(List.of(1L), result.ids());
+        assertEquals(1, result.total());
+        // Category counts apply the price selection only
+        assertEquals(Map.of("Bath", 0, "Garden", 1, "Kitchen", 1), result.counts().get("category"));
+        // Price counts apply the category selection only
+        assertEquals(Map.of("under-100", 1, "100-500", 1, "500-1000", 0, "1000-5000", 0, "5000-plus", 0),
+                result.counts().get("price"));
+        assertEquals(Map.of("in-stock", 1, "low-stock", 0, "out-of-stock", 0), result.counts().get("stock"));
+    }
+
+    @Test
+    void orsValuesWithinAFacetAndPages() {
+        ProductFacetIndex index = catalog();
+
+        ProductFacetIndex.FacetResult all = index.filter(null, null, List.of("low-stock", "out-of-stock"), 0, 10);
+        assertEquals(List.of(2L, 3L, 5L), all.ids());
+        assertEquals(3, all.total());
+
+        ProductFacetIndex.FacetResult page = index.filter(null, null, List.of("low-stock", "out-of-stock"), 1, 1);
+        assertEquals(List.of(3L), page.ids());
+        assertEquals(3, page.total());
+    }
+
+    @Test
+    void unknownCategoryMatchesNothing() {
+        ProductFacetIndex.FacetResult result = catalog().filter(List.of("Toys"), null, null, 0, 10);
+
+        assertEquals(List.of(), result.ids());
+        assertEquals(0, result.total());
+        assertEquals(Map.of("Bath", 1, "Garden", 2, "Kitchen", 2), result.counts().get("category"));
+    }
+
+    @Test
+    void stockUpdatesAndRemovalsMoveTheCounts() {
+        ProductFacetIndex index = catalog();
+
+        index.updateStock(1L, 0);
+        index.remove(5L);
+        index.index(product(4, "Bath", "700", 20));
+
+        ProductFacetIndex.FacetResult result = index.filter(null, null, null, 0, 10);
+        assertEquals(List.of(1L, 2L, 3L, 4L), result.ids());
+        assertEquals(Map.of("Bath", 1, "Garden", 1, "Kitchen", 2), result.counts().get("category"));
+        assertEquals(Map.of("in-stock", 1, "low-stock", 1, "out-of-stock", 2), result.counts().get("stock"));
+        assertEquals(0, result.counts().get("price").get("5000-plus"));
+    }
+
+    @Test
+    void rejectsUnknownFacetLabels() {
+        ProductFacetIndex index = catalog();
+
+        assertThrows(IllegalArgumentException.class, () -> index.filter(null, List.of("cheap"), null, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> index.filter(null, null, List.of("plenty"), 0, 10));
+    }
+}
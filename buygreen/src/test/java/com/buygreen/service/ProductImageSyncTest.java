@@ -0,0 +1,103 @@
+package com.buygreen.service;
+
+import com.buygreen.model.ProductImage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class ProductImageSyncTest {
+
+    private static final String DELETE = "DELETE";
+    private static final String MOVE = "UPDATE";
+    private static final String INSERT = "INSERT";
+
+    private ProductImageSync sync;
+    private JdbcTemplate jdbcTemplate;
+
+    // Statement kind -> rows of its batch, in the order the batches ran
+    private final Map<String, List<List<Object>>> batches = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            List<Object[]> rows = invocation.getArgument(1);
+            List<List<Object>> batch = new ArrayList<>();
+            rows.forEach(row -> batch.add(List.of(row)));
+            batches.put(sql.substring(0, sql.indexOf(' ')), batch);
+            return new int[rows.size()];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+        sync = new ProductImageSync();
+        ReflectionTestUtils.setField(sync, "jdbcTemplate", jdbcTemplate);
+    }
+
+    private static ProductImage image(long id, String url, int position) {
+        ProductImage image = new ProductImage(7L, url, position);
+        image.setId(id);
+        return image;
+    }
+
+    @Test
+    void unchangedListIssuesNoStatements() {
+        List<ProductImage> current = List.of(image(1, "a.jpg", 0), image(2, "b.jpg", 1));
+
+        assertFalse(sync.sync(7L, current, List.of("a.jpg", "b.jpg")));
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void keepsMovesDeletesAndInsertsInOneBatchEach() {
+        List<ProductImage> current = List.of(image(1, "a.jpg", 0), image(2, "b.jpg", 1), image(3, "c.jpg", 2));
+
+        assertTrue(sync.sync(7L, current, List.of("c.jpg", "a.jpg", "d.jpg")));
+
+        assertEquals(List.of(DELETE, MOVE, INSERT), List.copyOf(batches.keySet()));
+        assertEquals(List.of(List.of(2L)), batches.get(DELETE));
+        assertEquals(List.of(List.of(0, 3L), List.of(1, 1L)), batches.get(MOVE));
+        assertEquals(List.of(List.of(7L, "d.jpg", 2)), batches.get(INSERT));
+    }
+
+    @Test
+    void duplicateUrlsAreMatchedOneRowEach() {
+        List<ProductImage> current = List.of(image(1, "a.jpg", 0), image(2, "a.jpg", 1), image(3, "b.jpg", 2));
+
+        assertTrue(sync.sync(7L, current, List.of("a.jpg", "b.jpg", "b.jpg")));
+
+        assertEquals(List.of(List.of(2L)), batches.get(DELETE));
+        assertEquals(List.of(List.of(1, 3L)), batches.get(MOVE));
+        assertEquals(List.of(List.of(7L, "b.jpg", 2)), batches.get(INSERT));
+    }
+
+    @Test
+    void productWithoutImagesGetsEveryUrlInserted() {
+        assertTrue(sync.sync(7L, null, List.of("a.jpg", "a.jpg")));
+
+        assertEquals(List.of(INSERT), List.copyOf(batches.keySet()));
+        assertEquals(List.of(List.of(7L, "a.jpg", 0), List.of(7L, "a.jpg", 1)), batches.get(INSERT));
+    }
+
+    @Test
+    void emptyListDeletesEverything() {
+        assertTrue(sync.sync(7L, List.of(image(1, "a.jpg", 0), image(2, "b.jpg", 1)), List.of()));
+
+        assertEquals(List.of(DELETE), List.copyOf(batches.keySet()));
+        assertEquals(2, batches.get(DELETE).size());
+    }
+}
@@ -0,0 +1,162 @@
+package com.buygreen.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductImportServiceTest {
+
+    @Autowired
+    private ProductImportService importService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Map<String, Object> importCsv(String csv) throws IOException {
+        return importService.importProducts(new BufferedReader(new StringReader(csv)), ProductImportService.Format.CSV);
+    }
+
+    private Map<String, Object> importNdjson(String ndjson) throws IOException {
+        return importService.importProducts(new BufferedReader(new StringReader(ndjson)),
+                ProductImportService.Format.NDJSON);
+    }
+
+    private List<Map<String, Object>> products(String namePrefix) {
+        return jdbcTemplate.queryForList("SELECT id, name, description, price, stock_quantity, category FROM products "
+                + "WHERE name LIKE ? ORDER BY id", namePrefix + "%");
+    }
+
+    private static Map<String, Object> error(long line, String message) {
+        return Map.of("line", line, "message", message);
+    }
+
+    @Test
+    void readsQuotedCommasQuotesAndLineBreaks() throws IOException {
+        Map<String, Object> report = importCsv("""
+                Name,Price,StockQuantity,Category,Description
+                "Quoted, Jute Bag",120.50,7,Bags,"Holds ""everything""
+                and then some"
+                Quoted Cotton Tote,80,,Bags,Plain
+                """);
+
+        assertEquals(2L, report.get("processed"));
+        assertEquals(2L, report.get("imported"));
+        assertEquals(0L, report.get("failed"));
+        List<Map<String, Object>> rows = products("Quoted");
+        assertEquals("Quoted, Jute Bag", rows.get(0).get("name"));
+        assertEquals("Holds \"everything\"\nand then some", rows.get(0).get("description"));
+        assertEquals(7, rows.get(0).get("stock_quantity"));
+        assertEquals(0, rows.get(1).get("stock_quantity"));
+    }
+
+    @Test
+    void reportsBadRowsByTheirFirstLineAndImportsTheRest() throws IOException {
+        Map<String, Object> report = importCsv("""
+                name,price,stockQuantity,description
+                Lined Bamboo Cup,90,3,"two
+                lines"
+                ,50,1,no name
+                Lined Steel Cup,free,1,x
+
+                Lined Clay Cup,60,-2,x
+                Lined Glass Cup,75,4,x
+                """);
+
+        assertEquals(5L, report.get("processed"));
+        assertEquals(2L, report.get("imported"));
+        assertEquals(3L, report.get("failed"));
+        assertEquals(List.of(
+                error(4, "Product name is required"),
+                error(5, "Invalid price: free"),
+                error(7, "Stock quantity cannot be negative")), report.get("errors"));
+        assertEquals(List.of("Lined Bamboo Cup", "Lined Glass Cup"),
+                products("Lined").stream().map(row -> row.get("name")).toList());
+    }
+
+    @Test
+    void rowTheDatabaseRejectsFailsAloneAndTheRestOfItsChunkIsImported() throws IOException {
+        Map<String, Object> report = importCsv("""
+                name,price,imageUrls
+                Chunked Tote,120,https://img.example/tote.jpg
+                Chunked %s,80,
+                Chunked Pouch,60,
+                """.formatted("x".repeat(300)));
+
+        assertEquals(3L, report.get("processed"));
+        assertEquals(2L, report.get("imported"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> errors = (List<Map<String, Object>>) report.get("errors");
+        assertEquals(1, errors.size());
+        assertEquals(3L, errors.get(0).get("line"));
+        assertEquals(List.of("Chunked Pouch", "Chunked Tote"),
+                products("Chunked").stream().map(row -> row.get("name")).sorted().toList());
+        Object tote = products("Chunked Tote").get(0).get("id");
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product_images WHERE product_id = ?",
+                Integer.class, tote));
+    }
+
+    @Test
+    void storesImageUrlsSeparatedByPipes() throws IOException {
+        importCsv("""
+                name,price,imageUrls
+                Imaged Basket,300,https://img.example/a.jpg| https://img.example/b.jpg |
+                """);
+
+        Object id = products("Imaged Basket").get(0).get("id");
+        assertEquals(List.of("https://img.example/a.jpg", "https://img.example/b.jpg"),
+                jdbcTemplate.queryForList("SELECT image_url FROM product_images WHERE product_id = ? ORDER BY id",
+                        String.class, id));
+    }
+
+    @Test
+    void unterminatedQuoteIsReportedAndEarlierRowsAreKept() throws IOException {
+        Map<String, Object> report = importCsv("""
+                name,price,description
+                Open Quote Jar,80,fine
+                Open Quote Lid,20,"never
+                closed
+                """);
+
+        assertEquals(2L, report.get("processed"));
+        assertEquals(1L, report.get("imported"));
+        assertEquals(List.of(error(3, "Unterminated quoted field; the rest of the file was not read")),
+                report.get("errors"));
+        assertEquals(List.of("Open Quote Jar"),
+                products("Open Quote").stream().map(row -> row.get("name")).toList());
+    }
+
+    @Test
+    void headerNeedsNameAndPrice() {
+        assertThrows(IllegalArgumentException.class, () -> importCsv("name,category\nMug,Kitchen\n"));
+    }
+
+    @Test
+    void ndjsonReportsMalformedLines() throws IOException {
+        Map<String, Object> report = importNdjson("""
+                {"name": "Json Soap Bar", "price": 45, "stockQuantity": 12, "imageUrls": ["https://img.example/s.jpg"]}
+                {"name": "Json Broken",
+                {"name": "Json Free Soap", "price": 0}
+                """);
+
+        assertEquals(3L, report.get("processed"));
+        assertEquals(1L, report.get("imported"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> errors = (List<Map<String, Object>>) report.get("errors");
+        assertEquals(2L, errors.get(0).get("line"));
+        assertEquals(error(3, "Product price must be greater than zero"), errors.get(1));
+        assertEquals(12, products("Json Soap Bar").get(0).get("stock_quantity"));
+    }
+}
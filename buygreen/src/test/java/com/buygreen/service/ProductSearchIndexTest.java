@@ -0,0 +1,115 @@
+package com.buygreen.service;
+
+import com.buygreen.model.Product;
+import com.buygreen.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+
+    private static Product product(long id, String name, String category, String description) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setCategory(category);
+        product.setDescription(description);
+        return product;
+    }
+
+    private static List<Long> ids(ProductSearchIndex index, String query) {
+        return index.search(query, 0, 10).ids();
+    }
+
+    @Test
+    void nameHitsOutrankDescriptionHits() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.index(product(1, "Toothbrush Holder", "Bath", "Holds a bamboo brush"));
+        index.index(product(2, "Bamboo Toothbrush", "Bath", "Soft bristles"));
+
+        assertEquals(List.of(2L, 1L), ids(index, "bamboo"));
+    }
+
+    @Test
+    void rarerTermsAndShorterDocumentsScoreHigher() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.index(product(1, "Organic Cotton Bag", null, null));
+        index.index(product(2, "Neem Soap", null, null));
+        index.index(product(3, "Organic Tea", null, null));
+        index.index(product(4, "Organic Honey", null, null));
+
+        // "soap" is in one product, "organic" in three; equal scores fall back to the lower id
+        assertEquals(List.of(2L, 3L, 4L, 1L), ids(index, "organic soap"));
+    }
+
+    @Test
+    void lastTokenIsAPrefixAndStopWordsAreIgnored() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.index(product(1, "Bamboo Toothbrush", null, null));
+        index.index(product(2, "Steel Bottle", null, null));
+
+        assertEquals(List.of(1L), ids(index, "the bamb"));
+        assertEquals(List.of(), ids(index, "the of and"));
+    }
+
+    @Test
+    void pagesThroughTheRankingWithATotal() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        for (long id = 1; id <= 5; id++) {
+            index.index(product(id, "Jute " + "Bag ".repeat((int) id), null, null));
+        }
+
+        ProductSearchIndex.SearchHits first = index.search("jute", 0, 2);
+        ProductSearchIndex.SearchHits last = index.search("jute", 4, 2);
+
+        assertEquals(List.of(1L, 2L), first.ids());
+        assertEquals(5, first.total());
+        assertEquals(List.of(5L), last.ids());
+        assertEquals(List.of(), index.search("jute", 5, 2).ids());
+    }
+
+    @Test
+    void reindexingReplacesTheOldTermsAndRemoveDropsTheProduct() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.index(product(1, "Hemp Rope", null, null));
+        index.index(product(2, "Cotton Rope", null, null));
+
+        index.index(product(1, "Sisal Twine", null, null));
+        index.remove(2L);
+
+        assertEquals(List.of(), ids(index, "hemp"));
+        assertEquals(List.of(), ids(index, "rope"));
+        assertEquals(List.of(1L), ids(index, "sisal"));
+    }
+
+    @Test
+    void tokenizeLowerCasesAndSplitsOnPunctuation() {
+        assertEquals(List.of("eco", "friendly", "3", "pack"), ProductSearchIndex.tokenize("Eco-Friendly (3-pack)"));
+        assertEquals(List.of(), ProductSearchIndex.tokenize("  "));
+    }
+
+    @Test
+    void changesMadeWhileTheRebuildReadsTheTableSurviveIt() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        ProductRepository repository = mock(ProductRepository.class);
+        ReflectionTestUtils.setField(index, "productRepository", repository);
+        // The rows are read before the rename and the delete land, so they still show the old state
+        when(repository.findSearchableFields()).thenAnswer(invocation -> {
+            index.index(product(1, "Linen Apron", null, null));
+            index.remove(2L);
+            return List.of(new Object[]{1L, "Cotton Apron", null, null},
+                    new Object[]{2L, "Cotton Napkin", null, null},
+                    new Object[]{3L, "Cotton Towel", null, null});
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of(1L), ids(index, "linen"));
+        assertEquals(List.of(3L), ids(index, "cotton"));
+    }
+}
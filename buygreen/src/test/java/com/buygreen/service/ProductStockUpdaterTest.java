@@ -0,0 +1,125 @@
+package com.buygreen.service;
+
+import com.buygreen.model.Product;
+import com.buygreen.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductStockUpdaterTest {
+
+    @Autowired
+    private ProductStockUpdater stockUpdater;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long product(String name, int stock) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal("100"));
+        product.setStockQuantity(stock);
+        product.setUpdatedAt(LocalDateTime.now());
+        return productRepository.save(product).getId();
+    }
+
+    private int[] stockAndReserved(Long id) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity, reserved_quantity FROM products WHERE id = ?",
+                (rs, row) -> new int[]{rs.getInt(1), rs.getInt(2)}, id);
+    }
+
+    private Map<Long, ProductStockUpdater.StockLevel> decrement(Map<Long, Integer> quantities,
+                                                                Map<Long, Integer> reserved) {
+        return transactionTemplate.execute(status -> stockUpdater.decrement(new TreeMap<>(quantities), reserved));
+    }
+
+    @Test
+    void takesEveryLineAndBumpsTheRowVersion() {
+        Long mug = product("Clay Mug", 5);
+        Long plate = product("Clay Plate", 2);
+
+        Map<Long, ProductStockUpdater.StockLevel> levels = decrement(Map.of(mug, 3, plate, 2), Map.of());
+
+        assertEquals(2, levels.get(mug).stockQuantity());
+        assertEquals(1, levels.get(mug).version());
+        assertEquals(0, levels.get(plate).stockQuantity());
+        assertEquals(0, stockAndReserved(plate)[0]);
+    }
+
+    @Test
+    void shortfallRollsBackTheLinesAlreadyTaken() {
+        Long brush = product("Coir Brush", 5);
+        Long scrub = product("Coir Scrub", 1);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> decrement(Map.of(brush, 3, scrub, 2), Map.of()));
+
+        assertEquals("Not enough stock for product Coir Scrub. Only 1 available.", e.getMessage());
+        assertEquals(5, stockAndReserved(brush)[0]);
+        assertEquals(1, stockAndReserved(scrub)[0]);
+        assertEquals(0L, productRepository.findById(brush).orElseThrow().getVersion());
+    }
+
+    @Test
+    void unitsHeldForOthersAreNotForSale() {
+        Long towel = product("Linen Towel", 5);
+        jdbcTemplate.update("UPDATE products SET reserved_quantity = 4 WHERE id = ?", towel);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> decrement(Map.of(towel, 2), Map.of()));
+
+        assertEquals("Not enough stock for product Linen Towel. Only 1 available.", e.getMessage());
+        assertEquals(5, stockAndReserved(towel)[0]);
+        assertEquals(4, stockAndReserved(towel)[1]);
+    }
+
+    @Test
+    void consumesTheBuyersOwnHeldUnits() {
+        Long soap = product("Neem Soap", 5);
+        jdbcTemplate.update("UPDATE products SET reserved_quantity = 4 WHERE id = ?", soap);
+
+        // 3 of the 4 held units are the buyer's; the fourth unit comes from the 1 left for sale
+        decrement(Map.of(soap, 4), Map.of(soap, 3));
+
+        assertEquals(1, stockAndReserved(soap)[0]);
+        assertEquals(1, stockAndReserved(soap)[1]);
+    }
+
+    @Test
+    void neverConsumesMoreHeldUnitsThanOrdered() {
+        Long jar = product("Glass Jar", 6);
+        jdbcTemplate.update("UPDATE products SET reserved_quantity = 5 WHERE id = ?", jar);
+
+        decrement(Map.of(jar, 2), Map.of(jar, 5));
+
+        assertEquals(4, stockAndReserved(jar)[0]);
+        assertEquals(3, stockAndReserved(jar)[1]);
+    }
+
+    @Test
+    void unknownProductIsReportedAsNotFound() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> decrement(Map.of(Long.MAX_VALUE, 1), Map.of()));
+
+        assertEquals("Product not found with ID: " + Long.MAX_VALUE, e.getMessage());
+    }
+}
@@ -0,0 +1,106 @@
+package com.buygreen.service;
+
+import com.buygreen.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSuggestIndexTest {
+
+    private static Product product(long id, String name, String category) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setCategory(category);
+        return product;
+    }
+
+    private static List<Long> ids(List<ProductSuggestIndex.Suggestion> suggestions) {
+        return suggestions.stream().map(ProductSuggestIndex.Suggestion::id).toList();
+    }
+
+    @Test
+    void matchesAnyWordOfTheNameAndTheCategory() {
+        ProductSuggestIndex index = new ProductSuggestIndex();
+        index.index(product(1, "Bamboo Toothbrush", "Personal Care"));
+        index.index(product(2, "Steel Water Bottle", "Kitchen"));
+
+        assertEquals(List.of(1L), ids(index.suggest("tooth", 10)));
+        assertEquals(List.of(1L), ids(index.suggest("BAMB", 10)));
+        assertEquals(List.of(2L), ids(index.suggest("water b", 10)));
+        assertEquals(List.of(1L), ids(index.suggest("personal", 10)));
+        assertTrue(index.suggest("glass", 10).isEmpty());
+        assertTrue(index.suggest("  ", 10).isEmpty());
+    }
+
+    @Test
+    void ranksBySalesThenId() {
+        ProductSuggestIndex index = new ProductSuggestIndex();
+        index.index(product(1, "Cotton Bag", null));
+        index.index(product(2, "Cotton Towel", null));
+        index.index(product(3, "Cotton Shirt", null));
+
+        index.recordSale(3L, 5);
+        index.recordSale(2L, 1);
+
+        assertEquals(List.of(3L, 2L, 1L), ids(index.suggest("cot", 10)));
+        assertEquals(List.of(3L, 2L), ids(index.suggest("cot", 2)));
+    }
+
+    @Test
+    void deleteRemovesTheProductFromEveryPrefix() {
+        ProductSuggestIndex index = new ProductSuggestIndex();
+        index.index(product(1, "Jute Rug", "Home"));
+        index.index(product(2, "Jute Basket", "Home"));
+
+        index.delete(1L);
+
+        assertEquals(List.of(2L), ids(index.suggest("j", 10)));
+        assertEquals(List.of(2L), ids(index.suggest("home", 10)));
+        assertTrue(index.suggest("rug", 10).isEmpty());
+        assertTrue(index.suggest("jute r", 10).isEmpty());
+    }
+
+    @Test
+    void deleteRefillsTheTopListFromProductsBeyondIt() {
+        ProductSuggestIndex index = new ProductSuggestIndex();
+        int count = ProductSuggestIndex.TOP_K + 3;
+        for (long id = 1; id <= count; id++) {
+            index.index(product(id, "Soap " + id, null));
+            index.recordSale(id, (int) (100 - id));
+        }
+        assertEquals(ProductSuggestIndex.TOP_K, index.suggest("soap", 100).size());
+
+        index.delete(1L);
+        index.delete(2L);
+
+        List<Long> top = ids(index.suggest("soap", 100));
+        assertEquals(ProductSuggestIndex.TOP_K, top.size());
+        assertEquals(3L, top.get(0));
+        assertEquals((long) ProductSuggestIndex.TOP_K + 2, top.get(top.size() - 1));
+    }
+
+    @Test
+    void reindexingARenamedProductDropsItsOldKeysAndKeepsItsSales() {
+        ProductSuggestIndex index = new ProductSuggestIndex();
+        index.index(product(1, "Hemp Soap", null));
+        index.index(product(2, "Olive Soap", null));
+        index.recordSale(2L, 1);
+        index.recordSale(1L, 4);
+
+        index.index(product(1, "Neem Soap", null));
+
+        assertTrue(index.suggest("hemp", 10).isEmpty());
+        assertEquals(List.of(1L), ids(index.suggest("neem", 10)));
+        assertEquals(List.of(1L, 2L), ids(index.suggest("soap", 10)));
+    }
+
+    @Test
+    void normalizeFoldsCaseAccentsAndPunctuation() {
+        assertEquals("creme brulee kit", ProductSuggestIndex.normalize("  Crème-Brûlée   KIT! "));
+        assertEquals("", ProductSuggestIndex.normalize(null));
+    }
+}
@@ -0,0 +1,216 @@
+package com.buygreen.service;
+
+import com.buygreen.model.Cart;
+import com.buygreen.model.Product;
+import com.buygreen.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class StockReservationServiceTest {
+
+    private static final AtomicLong CUSTOMERS = new AtomicLong(1_000);
+
+    @Autowired
+    private StockReservationService reservations;
+
+    @Autowired
+    private ProductStockUpdater stockUpdater;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long product(String name, int stock) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal("50"));
+        product.setStockQuantity(stock);
+        product.setUpdatedAt(LocalDateTime.now());
+        return productRepository.save(product).getId();
+    }
+
+    private static Cart line(Long customerId, Long productId, int quantity) {
+        return new Cart(customerId, null, new BigDecimal("50"), productId, "item", quantity);
+    }
+
+    private int reserved(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT reserved_quantity FROM products WHERE id = ?", Integer.class,
+                productId);
+    }
+
+    private int holdRows(Long customerId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_reservations WHERE customer_id = ?",
+                Integer.class, customerId);
+    }
+
+    @Test
+    void reservingHoldsUnitsForEveryoneElse() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        Long basket = product("Wicker Basket", 5);
+
+        LocalDateTime expiresAt = reservations.reserveCart(customer, List.of(line(customer, basket, 3)));
+
+        assertTrue(expiresAt.isAfter(LocalDateTime.now()));
+        assertEquals(3, reserved(basket));
+        assertEquals(1, holdRows(customer));
+        assertEquals(Map.of(basket, 2), reservations.available(List.of(basket)));
+        assertTrue(reservations.isHolding(customer));
+    }
+
+    @Test
+    void reservingAgainReplacesTheEarlierHolds() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        Long bowl = product("Coconut Bowl", 5);
+
+        reservations.reserveCart(customer, List.of(line(customer, bowl, 4)));
+        reservations.reserveCart(customer, List.of(line(customer, bowl, 1), line(customer, bowl, 1)));
+
+        assertEquals(2, reserved(bowl));
+        assertEquals(1, holdRows(customer));
+    }
+
+    @Test
+    void shortfallHoldsNothing() {
+        Long holder = CUSTOMERS.incrementAndGet();
+        Long customer = CUSTOMERS.incrementAndGet();
+        Long cup = product("Steel Cup", 5);
+        Long straw = product("Steel Straw", 10);
+        reservations.reserveCart(holder, List.of(line(holder, cup, 4)));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> reservations.reserveCart(customer, List.of(line(customer, straw, 2), line(customer, cup, 2))));
+
+        assertEquals("Not enough stock for product Steel Cup. Only 1 available.", e.getMessage());
+        assertEquals(4, reserved(cup));
+        assertEquals(0, reserved(straw));
+        assertEquals(0, holdRows(customer));
+    }
+
+    @Test
+    void emptyCartCannotBeReserved() {
+        assertThrows(IllegalArgumentException.class,
+                () -> reservations.reserveCart(CUSTOMERS.incrementAndGet(), List.of()));
+    }
+
+    @Test
+    void convertHandsHeldUnitsToTheDecrementAndReleasesTheRest() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        Long mat = product("Jute Mat", 5);
+        Long rug = product("Jute Rug", 5);
+        reservations.reserveCart(customer, List.of(line(customer, mat, 3), line(customer, rug, 2)));
+
+        Map<Long, Integer> used = transactionTemplate.execute(status -> {
+            Map<Long, Integer> held = reservations.convert(customer, Map.of(mat, 2));
+            stockUpdater.decrement(new TreeMap<>(Map.of(mat, 2)), held);
+            return held;
+        });
+
+        assertEquals(Map.of(mat, 2), used);
+        assertEquals(0, reserved(mat));
+        assertEquals(0, reserved(rug));
+        assertEquals(0, holdRows(customer));
+        assertEquals(Map.of(mat, 3, rug, 5), reservations.available(List.of(mat, rug)));
+    }
+
+    @Test
+    void convertWithoutHoldsUsesNothing() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        Long pot = product("Terracotta Pot", 5);
+
+        Map<Long, Integer> used = transactionTemplate.execute(status -> reservations.convert(customer, Map.of(pot, 1)));
+
+        assertEquals(Map.of(), used);
+    }
+
+    @Test
+    void rolledBackOrderKeepsTheHolds() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        Long lamp = product("Bamboo Lamp", 5);
+        reservations.reserveCart(customer, List.of(line(customer, lamp, 2)));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            reservations.convert(customer, Map.of(lamp, 2));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(2, reserved(lamp));
+        assertEquals(1, holdRows(customer));
+    }
+
+    @Test
+    void sweeperReleasesOnlyExpiredHolds() {
+        Long expired = CUSTOMERS.incrementAndGet();
+        Long active = CUSTOMERS.incrementAndGet();
+        Long crate = product("Pine Crate", 10);
+        reservations.reserveCart(expired, List.of(line(expired, crate, 3)));
+        reservations.reserveCart(active, List.of(line(active, crate, 2)));
+        jdbcTemplate.update("UPDATE stock_reservations SET expires_at = ? WHERE customer_id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), expired);
+
+        reservations.releaseOrphans();
+
+        assertEquals(2, reserved(crate));
+        assertEquals(0, holdRows(expired));
+        assertEquals(1, holdRows(active));
+
+        // Already released; a second sweep must not give the units back again
+        reservations.releaseOrphans();
+        assertEquals(2, reserved(crate));
+    }
+
+    @Test
+    void releaseCartGivesEveryHoldBack() {
+        Long customer = CUSTOMERS.incrementAndGet();
+        Long tray = product("Bamboo Tray", 5);
+        reservations.reserveCart(customer, List.of(line(customer, tray, 5)));
+
+        reservations.releaseCart(customer);
+
+        assertEquals(0, reserved(tray));
+        assertEquals(0, holdRows(customer));
+        assertEquals(Map.of(tray, 5), reservations.available(List.of(tray)));
+        assertFalse(reservations.isHolding(customer));
+    }
+
+    @Test
+    void cartAddsLeaveOtherCustomersHoldsAlone() {
+        Long holder = CUSTOMERS.incrementAndGet();
+        Long other = CUSTOMERS.incrementAndGet();
+        Long jar = product("Glass Jar", 5);
+        reservations.reserveCart(holder, List.of(line(holder, jar, 3)));
+
+        cartService.addToCart(line(other, jar, 5));
+        // Reserving again replaces the holder's own holds, so all of the stock is theirs to ask for
+        cartService.addToCart(line(holder, jar, 5));
+
+        assertEquals(2, cartService.getCartItems(other).get(0).getQuantity());
+        assertEquals(5, cartService.getCartItems(holder).get(0).getQuantity());
+    }
+}
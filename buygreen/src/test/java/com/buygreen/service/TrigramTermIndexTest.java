@@ -0,0 +1,91 @@
+package com.buygreen.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrigramTermIndexTest {
+
+    private static List<String> terms(List<TrigramTermIndex.Match> matches) {
+        return matches.stream().map(TrigramTermIndex.Match::term).toList();
+    }
+
+    @Test
+    void countsAnAdjacentTranspositionAsOneEdit() {
+        TrigramTermIndex index = new TrigramTermIndex();
+        index.add("bottle");
+        index.add("bottles");
+        index.add("battle");
+        index.add("kettle");
+
+        List<TrigramTermIndex.Match> matches = index.match("bottel", 1, 10);
+
+        assertEquals(List.of(new TrigramTermIndex.Match("bottle", 1)), matches);
+    }
+
+    @Test
+    void ordersMatchesByDistanceThenTermAndAppliesTheLimit() {
+        TrigramTermIndex index = new TrigramTermIndex();
+        index.add("toothbrash");
+        index.add("toothbrushes");
+        index.add("toothbrush");
+        index.add("toothpaste");
+
+        assertEquals(List.of("toothbrush", "toothbrushes", "toothbrash"), terms(index.match("toothbrushs", 2, 10)));
+        assertEquals(List.of("toothbrush"), terms(index.match("toothbrushs", 2, 1)));
+    }
+
+    @Test
+    void neverReturnsTheTokenItselfOrTermsBeyondTheDistance() {
+        TrigramTermIndex index = new TrigramTermIndex();
+        index.add("composter");
+        index.add("composted");
+        index.add("composters");
+        index.add("compost");
+
+        assertEquals(List.of("composted", "composters"), terms(index.match("composter", 1, 10)));
+        assertEquals(List.of("composted", "composters", "compost"), terms(index.match("composter", 2, 10)));
+    }
+
+    @Test
+    void tooShortTokensAreNotMatched() {
+        TrigramTermIndex index = new TrigramTermIndex();
+        index.add("tea");
+
+        assertTrue(index.match("tae", 1, 10).isEmpty());
+    }
+
+    @Test
+    void removedTermsStopMatchingAndCanComeBack() {
+        TrigramTermIndex index = new TrigramTermIndex();
+        index.add("organic");
+
+        index.remove("organic");
+        assertTrue(index.match("organik", 1, 10).isEmpty());
+        assertEquals(0, index.size());
+
+        index.add("organic");
+        assertEquals(List.of("organic"), terms(index.match("organik", 1, 10)));
+        assertEquals(1, index.capacityUsed());
+    }
+
+    @Test
+    void compactsOnceEnoughTermsAreRemoved() {
+        TrigramTermIndex index = new TrigramTermIndex();
+        for (int i = 0; i < 1_000; i++) {
+            index.add(String.format("product%04d", i));
+        }
+        for (int i = 0; i < 300; i++) {
+            index.remove(String.format("product%04d", i));
+        }
+
+        assertEquals(700, index.size());
+        // Compacted at the 256th removal; only the 44 removed since still hold an id
+        assertEquals(744, index.capacityUsed());
+        assertTrue(index.match("xproduct0001", 1, 10).isEmpty());
+        assertEquals(List.of("product0999"), terms(index.match("xproduct0999", 1, 10)));
+    }
+}